@@ -0,0 +1,35 @@
+// events raised from inside the algorithm loops. every method does nothing by
+// default, so with NONE installed the calls inline to nothing and the loops
+// run as if untraced; ConsoleTrace prints the step by step output instead
+interface AlgorithmListener {
+    AlgorithmListener NONE = new AlgorithmListener() {
+    };
+
+    enum Algorithm { PRIM, DIJKSTRA, KRUSKAL }
+
+    enum HeapOp { INSERT, REMOVE, DECREASE_KEY }
+
+    // an edge was read from the graph file
+    default void edgeLoaded(int u, int v, int wgt) {
+    }
+
+    default void started(Algorithm alg, int source) {
+    }
+
+    // v left the heap for good, parent is -1 for the source
+    default void vertexSettled(Algorithm alg, int v, int parent, int step) {
+    }
+
+    default void edgeAccepted(Algorithm alg, int u, int v, int wgt) {
+    }
+
+    default void edgeRejected(Algorithm alg, int u, int v, int wgt) {
+    }
+
+    // the partition after Kruskal has dealt with an edge
+    default void setsChanged(UnionFindSets sets) {
+    }
+
+    default void heapOperation(Algorithm alg, HeapOp op, int v) {
+    }
+}
@@ -0,0 +1,260 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// all pairs shortest distances written to a memory-mapped matrix file, one
+// Dijkstra per source on the pool, each thread reusing its QueryWorkspace.
+//
+// layout, little endian:
+//   int magic 'GAPS', int version, int V, int width, long E, long fingerprint,
+//   32 bytes reserved
+//   done bitmap, bit s set once row s is safely on disk
+//   rows 1..V starting at the next 4KB boundary, row s holds dist(s, 1..V)
+//   in width bytes each, the largest value meaning unreachable
+//
+// width is 2 bytes when every finite distance fits, else 4. rows are
+// written in batches, a batch is forced to disk before its bits are set, so
+// an interrupted job resumes from the last finished batch. the fingerprint
+// covers the edges and weights, a file is never resumed for a different graph
+class AllPairs {
+    public static final int MAGIC = 0x53504147; // "GAPS" read little endian
+    public static final int VERSION = 1;
+    private static final int HEADER = 64;
+    private static final long SEGMENT = 1L << 30; // bytes per mapping, rows never straddle two
+
+    private final Graph g;
+    private final ForkJoinPool pool;
+    private final int V;
+    private final int width;
+    private final long rowBytes;
+    private final int rowsPerSegment;
+
+    public int rowsComputed; // rows computed by the last run, not counting resumed ones
+
+    public AllPairs(Graph _g) {
+        this(_g, ForkJoinPool.commonPool());
+    }
+
+    public AllPairs(Graph _g, ForkJoinPool _pool) {
+        g = _g;
+        pool = _pool;
+        V = g.vertices();
+        if (g.minWeight() < 0)
+            throw new IllegalArgumentException("all pairs needs non-negative edge weights");
+        width = (long) g.maxWeight() * Math.max(0, V - 1) < 0xFFFF ? 2 : 4;
+        rowBytes = (long) V * width;
+        rowsPerSegment = (int) Math.max(1, SEGMENT / Math.max(1, rowBytes));
+    }
+
+    // compute every row missing from file, creating it if needed
+    public void run(String file) throws IOException {
+        Path path = Paths.get(file);
+        long fingerprint = fingerprint(g);
+        long bitmapBytes = 8L * ((V + 1 + 63) / 64);
+        long dataStart = (HEADER + bitmapBytes + 4095) & ~4095L;
+        long size = dataStart + rowBytes * V;
+        rowsComputed = 0;
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (ch.size() == 0)
+                ch.write(ByteBuffer.wrap(new byte[1]), size - 1); // full length up front, zero filled
+            if (ch.size() != size)
+                throw new IOException(file + " is " + ch.size() + " bytes, expected " + size + " for this graph");
+            MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_WRITE, 0, dataStart);
+            head.order(ByteOrder.LITTLE_ENDIAN);
+            if (head.getInt(0) == 0) {
+                // magic goes in last, so a half-written header never looks valid
+                head.putInt(4, VERSION).putInt(8, V).putInt(12, width).putLong(16, g.edges()).putLong(24, fingerprint);
+                head.force();
+                head.putInt(0, MAGIC);
+                head.force();
+            } else if (head.getInt(0) != MAGIC || head.getInt(4) != VERSION || head.getInt(8) != V
+                    || head.getInt(12) != width || head.getLong(16) != g.edges() || head.getLong(24) != fingerprint) {
+                throw new IOException(file + " does not hold distances for this graph");
+            }
+
+            MappedByteBuffer[] segments = new MappedByteBuffer[(V + rowsPerSegment - 1) / Math.max(1, rowsPerSegment)];
+            for (int k = 0; k < segments.length; ++k) {
+                long from = dataStart + (long) k * rowsPerSegment * rowBytes;
+                long len = Math.min((long) rowsPerSegment, V - (long) k * rowsPerSegment) * rowBytes;
+                segments[k] = ch.map(FileChannel.MapMode.READ_WRITE, from, len);
+                segments[k].order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            // the sources still to do, in batches of a few rows per thread
+            int[] todo = new int[V];
+            int n = 0;
+            for (int s = 1; s <= V; ++s)
+                if (!isSet(head, s))
+                    todo[n++] = s;
+            int batch = Math.max(64, 16 * pool.getParallelism());
+
+            for (int lo = 0; lo < n; lo += batch) {
+                int hi = Math.min(n, lo + batch);
+                int first = lo;
+                try {
+                    pool.submit(() -> IntStream.range(first, hi).parallel().forEach(i -> row(todo[i], segments))).get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("all pairs interrupted, " + lo + " of " + n + " rows done", ex);
+                } catch (ExecutionException ex) {
+                    throw new IOException("all pairs failed", ex.getCause());
+                }
+
+                // rows reach the disk before the bits that vouch for them. todo
+                // is increasing, so each segment of the batch is forced once
+                for (int i = lo, last = -1; i < hi; ++i) {
+                    int k = (todo[i] - 1) / rowsPerSegment;
+                    if (k != last)
+                        segments[k].force();
+                    last = k;
+                }
+                for (int i = lo; i < hi; ++i)
+                    set(head, todo[i]);
+                head.force();
+                rowsComputed += hi - lo;
+            }
+        }
+    }
+
+    // one Dijkstra from s written straight into its row
+    private void row(int s, MappedByteBuffer[] segments) {
+        QueryWorkspace ws = g.workspace();
+        try {
+            ws.spt(s);
+            MappedByteBuffer seg = segments[(s - 1) / rowsPerSegment];
+            int at = (int) (((s - 1) % rowsPerSegment) * rowBytes);
+            if (width == 2) {
+                for (int t = 1; t <= V; ++t, at += 2) {
+                    int d = ws.dist(t);
+                    seg.putShort(at, (short) (d == Integer.MAX_VALUE ? 0xFFFF : d));
+                }
+            } else {
+                for (int t = 1; t <= V; ++t, at += 4)
+                    seg.putInt(at, ws.dist(t));
+            }
+        } finally {
+            g.release(ws);
+        }
+    }
+
+    private static boolean isSet(MappedByteBuffer head, int s) {
+        return (head.getLong(HEADER + 8 * (s >>> 6)) & (1L << s)) != 0;
+    }
+
+    private static void set(MappedByteBuffer head, int s) {
+        int at = HEADER + 8 * (s >>> 6);
+        head.putLong(at, head.getLong(at) | (1L << s));
+    }
+
+    // hash of every adjacency entry, order and weights included
+    static long fingerprint(Graph g) {
+        long h = 1125899906842597L;
+        EdgeCursor t = g.adjacency().cursor();
+        for (int v = 1; v <= g.vertices(); ++v) {
+            t.start(v);
+            while (t.next())
+                h = 31 * (31 * (31 * h + v) + t.vert) + t.wgt;
+        }
+        return h;
+    }
+
+    // random access to a matrix file, rows may still be missing while a job runs
+    static class Reader implements AutoCloseable {
+        private final FileChannel ch;
+        private final MappedByteBuffer head;
+        private final MappedByteBuffer[] segments;
+        public final int V;
+        private final int width;
+        private final long rowBytes;
+        private final int rowsPerSegment;
+
+        public Reader(String file) throws IOException {
+            ch = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+            MappedByteBuffer h = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(ch.size(), HEADER));
+            h.order(ByteOrder.LITTLE_ENDIAN);
+            if (ch.size() < HEADER || h.getInt(0) != MAGIC || h.getInt(4) != VERSION) {
+                ch.close();
+                throw new IOException(file + " is not an all pairs matrix");
+            }
+            V = h.getInt(8);
+            width = h.getInt(12);
+            rowBytes = (long) V * width;
+            rowsPerSegment = (int) Math.max(1, SEGMENT / Math.max(1, rowBytes));
+            long bitmapBytes = 8L * ((V + 1 + 63) / 64);
+            long dataStart = (HEADER + bitmapBytes + 4095) & ~4095L;
+            if (ch.size() != dataStart + rowBytes * V) {
+                ch.close();
+                throw new IOException(file + " is " + ch.size() + " bytes, header says " + (dataStart + rowBytes * V));
+            }
+            head = ch.map(FileChannel.MapMode.READ_ONLY, 0, dataStart);
+            head.order(ByteOrder.LITTLE_ENDIAN);
+            segments = new MappedByteBuffer[(V + rowsPerSegment - 1) / Math.max(1, rowsPerSegment)];
+            for (int k = 0; k < segments.length; ++k) {
+                long from = dataStart + (long) k * rowsPerSegment * rowBytes;
+                long len = Math.min((long) rowsPerSegment, V - (long) k * rowsPerSegment) * rowBytes;
+                segments[k] = ch.map(FileChannel.MapMode.READ_ONLY, from, len);
+                segments[k].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        public boolean hasRow(int s) {
+            return isSet(head, s);
+        }
+
+        // rows finished so far
+        public int rowsDone() {
+            int n = 0;
+            for (int s = 1; s <= V; ++s)
+                if (isSet(head, s))
+                    ++n;
+            return n;
+        }
+
+        // dist(s, t), Integer.MAX_VALUE if unreachable
+        public int distance(int s, int t) {
+            if (!hasRow(s))
+                throw new IllegalStateException("row " + s + " has not been computed");
+            MappedByteBuffer seg = segments[(s - 1) / rowsPerSegment];
+            int at = (int) (((s - 1) % rowsPerSegment) * rowBytes + (long) (t - 1) * width);
+            if (width == 2) {
+                int d = seg.getShort(at) & 0xFFFF;
+                return d == 0xFFFF ? Integer.MAX_VALUE : d;
+            }
+            return seg.getInt(at);
+        }
+
+        // the whole row of s into out[1..V]
+        public void row(int s, int[] out) {
+            for (int t = 1; t <= V; ++t)
+                out[t] = distance(s, t);
+        }
+
+        public void close() throws IOException {
+            ch.close();
+        }
+    }
+
+    // e.g. "java AllPairs wGraph1.txt wGraph1.apsp", rerun the same command to resume
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: java AllPairs <edge file> <matrix file>");
+            System.exit(1);
+        }
+        Graph g = new Graph(args[0], Graph.Storage.CSR);
+        long begin = System.nanoTime();
+        AllPairs job = new AllPairs(g);
+        job.run(args[1]);
+        System.out.printf("Computed %d of %d rows into %s (%d bytes per distance) in %.1f ms%n",
+                job.rowsComputed, g.vertices(), args[1], job.width, (System.nanoTime() - begin) / 1e6);
+    }
+}
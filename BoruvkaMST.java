@@ -0,0 +1,86 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+// parallel Boruvka MST over an Edge[] array (edges[1..E], as read by KruskalGraph).
+// each round every component finds its cheapest outgoing edge in parallel,
+// then all those edges are merged through a lock-free union-find. ties are
+// broken by edge index so the chosen edges can never close a cycle
+class BoruvkaMST {
+    private final int numVertices;
+    private final Edge[] edges;
+    private final ForkJoinPool pool;
+
+    public BoruvkaMST(int _numVertices, Edge[] _edges) {
+        this(_numVertices, _edges, ForkJoinPool.commonPool());
+    }
+
+    public BoruvkaMST(int _numVertices, Edge[] _edges, ForkJoinPool _pool) {
+        numVertices = _numVertices;
+        edges = _edges;
+        pool = _pool;
+    }
+
+    // indices into edges[] of a minimum spanning forest, by weight then index
+    public int[] run() {
+        int numEdges = edges.length - 1;
+        ConcurrentUnionFind sets = new ConcurrentUnionFind(numVertices);
+        AtomicLongArray best = new AtomicLongArray(numVertices + 1);
+        int[] chosen = new int[Math.max(0, numVertices - 1)];
+        int count = 0;
+
+        // edges that may still join two components
+        int[] alive = IntStream.rangeClosed(1, numEdges).toArray();
+
+        while (alive.length > 0 && count < numVertices - 1) {
+            int[] live = alive;
+            pool.submit(() -> IntStream.rangeClosed(0, numVertices).parallel()
+                    .forEach(v -> best.set(v, Long.MAX_VALUE))).join();
+
+            // cheapest edge leaving every component, keyed on (weight, index)
+            pool.submit(() -> IntStream.range(0, live.length).parallel().forEach(k -> {
+                int e = live[k];
+                int ru = sets.find(edges[e].start);
+                int rv = sets.find(edges[e].end);
+                if (ru == rv)
+                    return;
+                long key = ((long) edges[e].weight << 32) | e;
+                minimise(best, ru, key);
+                minimise(best, rv, key);
+            })).join();
+
+            // merge along the chosen edges, the union that succeeds claims the edge
+            int before = count;
+            int[] picked = pool.submit(() -> IntStream.rangeClosed(1, numVertices).parallel()
+                    .filter(r -> best.get(r) != Long.MAX_VALUE)
+                    .map(r -> (int) best.get(r))
+                    .filter(e -> sets.union(edges[e].start, edges[e].end))
+                    .toArray()).join();
+            System.arraycopy(picked, 0, chosen, count, picked.length);
+            count += picked.length;
+            if (count == before)
+                break; // no component has an outgoing edge, the graph is disconnected
+
+            // drop the edges that now lie inside one component
+            alive = pool.submit(() -> Arrays.stream(live).parallel()
+                    .filter(e -> sets.find(edges[e].start) != sets.find(edges[e].end))
+                    .toArray()).join();
+        }
+
+        int[] mst = Arrays.copyOf(chosen, count);
+        long[] order = new long[mst.length];
+        for (int i = 0; i < mst.length; ++i)
+            order[i] = ((long) edges[mst[i]].weight << 32) | mst[i];
+        Arrays.sort(order);
+        for (int i = 0; i < mst.length; ++i)
+            mst[i] = (int) order[i];
+        return mst;
+    }
+
+    private static void minimise(AtomicLongArray best, int r, long key) {
+        long old = best.get(r);
+        while (key < old && !best.compareAndSet(r, old, key))
+            old = best.get(r);
+    }
+}
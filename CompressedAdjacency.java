@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+// adjacency lists compressed in the style of WebGraph. every list is sorted
+// by target and written into one byte array as varints:
+//
+//   degree, then per neighbour a gap and a weight
+//
+// the first gap is target - v zigzag encoded, the later ones are the plain
+// difference from the previous target, 0 for a parallel edge. weights are
+// stored as their distance above the lightest weight in the graph, so a
+// weight range under 128 costs one byte per edge. index[i] is where the list of
+// vertex i * k starts, so start(v) jumps there and skips at most k - 1 lists
+// by counting varint end bytes. small gaps need locality: on a graph numbered
+// along its structure (a grid, or one relabelled by VertexOrdering) most
+// gaps and weights take one byte each. the lists are sorted, so neighbours come
+// out in increasing order rather than in file order. read-only like a snapshot.
+// the build reads the edge arrays directly, a block of vertices per pass, so
+// it never holds a CSR next to the bytes it writes
+class CompressedAdjacency implements Adjacency {
+    public static final int DEFAULT_K = 8;
+
+    // the half-edges of a block fill a buffer of 1/PASSES of them, at least MIN_BLOCK
+    private static final int PASSES = 8, MIN_BLOCK = 1 << 16;
+
+    private final int V;
+    private final byte[] data;
+    private final int[] index; // index[i] = start of the list of vertex i << shift
+    private final int shift;   // k = 1 << shift
+    private final int base;    // lightest weight, weights are stored as w - base
+
+    private CompressedAdjacency(int _V, byte[] _data, int[] _index, int _shift, int _base) {
+        V = _V;
+        data = _data;
+        index = _index;
+        shift = _shift;
+        base = _base;
+    }
+
+    public static CompressedAdjacency build(int V, int E, int[] from, int[] to, int[] wgt) {
+        return build(V, E, from, to, wgt, DEFAULT_K);
+    }
+
+    // k is rounded up to a power of two, a larger k means a smaller index and a slower start()
+    public static CompressedAdjacency build(int V, int E, int[] from, int[] to, int[] wgt, int k) {
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(1, k) - 1);
+        int[] index = new int[(V >>> shift) + 2];
+
+        // degrees, then start[v] is where v's half-edges would begin in a CSR
+        int[] start = new int[V + 2];
+        for (int e = 0; e < E; ++e) {
+            start[from[e] + 1]++;
+            start[to[e] + 1]++;
+        }
+        int maxDegree = 0;
+        for (int v = 1; v <= V + 1; ++v) {
+            maxDegree = Math.max(maxDegree, start[v]);
+            start[v] += start[v - 1];
+        }
+        int base = 0;
+        for (int e = 0; e < E; ++e)
+            base = e == 0 ? wgt[0] : Math.min(base, wgt[e]);
+
+        // (target << 32) | weight per half-edge of the block, sorted per vertex
+        long[] block = new long[(int) Math.min(2L * E, Math.max(maxDegree, Math.max(MIN_BLOCK, 2L * E / PASSES + 1)))];
+        int[] fill = new int[V + 1];
+        Bytes out = new Bytes(4L * E + V + 16);
+        for (int lo = 0, hi; lo <= V; lo = hi) {
+            // whole lists lo .. hi - 1, as many as the buffer takes
+            hi = lo + 1;
+            while (hi <= V && start[hi + 1] - start[lo] <= block.length)
+                ++hi;
+            for (int v = lo; v < hi; ++v)
+                fill[v] = start[v] - start[lo];
+            for (int e = 0; e < E; ++e) {
+                int u = from[e], v = to[e];
+                long w = wgt[e] & 0xffffffffL;
+                if (u >= lo && u < hi)
+                    block[fill[u]++] = ((long) v << 32) | w;
+                if (v >= lo && v < hi)
+                    block[fill[v]++] = ((long) u << 32) | w;
+            }
+
+            for (int v = lo; v < hi; ++v) {
+                if ((v & ((1 << shift) - 1)) == 0)
+                    index[v >>> shift] = out.size;
+                int p = start[v] - start[lo], d = start[v + 1] - start[v];
+                out.varint(d);
+                Arrays.sort(block, p, p + d);
+                int prev = v;
+                for (int i = p; i < p + d; ++i) {
+                    int u = (int) (block[i] >>> 32);
+                    out.varint(i == p ? zigzag(u - v) : u - prev);
+                    out.varint((int) block[i] - base); // wraps for huge ranges, base + x wraps back
+                    prev = u;
+                }
+            }
+        }
+        index[index.length - 1] = out.size;
+        return new CompressedAdjacency(V, out.trim(), index, shift, base);
+    }
+
+    // bytes held, lists and index together
+    public long bytes() {
+        return data.length + 4L * index.length;
+    }
+
+    public int k() {
+        return 1 << shift;
+    }
+
+    public int degree(int v) {
+        int p = locate(v);
+        int d = 0, s = 0, b;
+        do {
+            b = data[p++];
+            d |= (b & 0x7f) << s;
+            s += 7;
+        } while (b < 0);
+        return d;
+    }
+
+    // byte position of the list of v
+    private int locate(int v) {
+        int p = index[v >>> shift];
+        for (int u = v & ~((1 << shift) - 1); u < v; ++u) {
+            // the degree, then 2 * degree varints to step over
+            int d = 0, s = 0, b;
+            do {
+                b = data[p++];
+                d |= (b & 0x7f) << s;
+                s += 7;
+            } while (b < 0);
+            for (int n = 2 * d; n > 0; )
+                if (data[p++] >= 0)
+                    --n;
+        }
+        return p;
+    }
+
+    public EdgeCursor cursor() {
+        return new EdgeCursor() {
+            private int pos, left, prev, from;
+            private boolean first;
+            private int last = -2; // pos is at the list of last + 1 once left == 0
+
+            public void start(int v) {
+                // walking the vertices in order needs no index lookup
+                if (v != last + 1 || left != 0)
+                    pos = locate(v);
+                left = readVarint();
+                from = prev = last = v;
+                first = true;
+            }
+
+            public boolean next() {
+                if (left == 0)
+                    return false;
+                --left;
+                int gap = readVarint();
+                prev = first ? from + unzigzag(gap) : prev + gap;
+                first = false;
+                vert = prev;
+                wgt = base + readVarint();
+                return true;
+            }
+
+            private int readVarint() {
+                int b = data[pos++];
+                if (b >= 0)
+                    return b;
+                int x = b & 0x7f, s = 7;
+                do {
+                    b = data[pos++];
+                    x |= (b & 0x7f) << s;
+                    s += 7;
+                } while (b < 0);
+                return x;
+            }
+        };
+    }
+
+    // size and speed next to CSR, e.g. "java CompressedAdjacency road.txt 8"
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: java CompressedAdjacency <edge file> [k]");
+            System.exit(1);
+        }
+        EdgeFileParser edges = EdgeFileParser.parse(args[0]);
+        CsrAdjacency csr = CsrAdjacency.build(edges.V, edges.E, edges.from, edges.to, edges.wgt);
+        long begin = System.nanoTime();
+        CompressedAdjacency packed = build(edges.V, edges.E, edges.from, edges.to, edges.wgt,
+                args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_K);
+        double buildMs = (System.nanoTime() - begin) / 1e6;
+        long csrBytes = 4L * (csr.offsets.length + csr.targets.length + csr.weights.length);
+        System.out.printf("CSR %d bytes, compressed %d bytes with k = %d (%.2fx smaller, %.2f bytes per half-edge), built in %.1f ms%n",
+                csrBytes, packed.bytes(), packed.k(), (double) csrBytes / packed.bytes(),
+                (double) packed.data.length / Math.max(1, csr.targets.length), buildMs);
+
+        // every list in vertex order, then in a scattered order that needs the index
+        int[] scattered = new int[edges.V];
+        for (int i = 0; i < edges.V; ++i)
+            scattered[i] = 1 + (int) ((i * 2654435761L) % edges.V);
+        EdgeCursor[] cursors = { csr.cursor(), packed.cursor(), csr.cursor(), packed.cursor() };
+        int[][] orders = { null, null, scattered, scattered };
+        double[] ms = new double[4];
+        long[] sums = new long[4];
+        for (int rep = 0; rep < 3; ++rep) {
+            for (int i = 0; i < 4; ++i) {
+                begin = System.nanoTime();
+                sums[i] = scan(cursors[i], edges.V, orders[i]);
+                ms[i] = (System.nanoTime() - begin) / 1e6;
+            }
+            // the sums keep the scans alive and show both stores hold the same lists
+            for (int i = 1; i < 4; ++i)
+                if (sums[i] != sums[0])
+                    throw new IllegalStateException("compressed lists differ from CSR");
+            System.out.printf("scan in order: CSR %.1f ms, compressed %.1f ms; scattered: CSR %.1f ms, compressed %.1f ms (checksum %d)%n",
+                    ms[0], ms[1], ms[2], ms[3], sums[0]);
+        }
+    }
+
+    // sum of targets and weights over the lists, in vertex order or the given one
+    private static long scan(EdgeCursor t, int V, int[] order) {
+        long sum = 0;
+        for (int i = 0; i < V; ++i) {
+            t.start(order == null ? i + 1 : order[i]);
+            while (t.next())
+                sum += t.vert + t.wgt;
+        }
+        return sum;
+    }
+
+    private static int zigzag(int x) {
+        return (x << 1) ^ (x >> 31);
+    }
+
+    private static int unzigzag(int x) {
+        return (x >>> 1) ^ -(x & 1);
+    }
+
+    // growable byte buffer for the build
+    private static final class Bytes {
+        byte[] a;
+        int size;
+
+        Bytes(long capacity) {
+            a = new byte[(int) Math.min(capacity, Integer.MAX_VALUE - 8)];
+        }
+
+        void varint(int x) {
+            if (a.length - size < 5) {
+                if (a.length >= Integer.MAX_VALUE - 8)
+                    throw new IllegalStateException("compressed adjacency over 2GB");
+                a = Arrays.copyOf(a, (int) Math.min(Integer.MAX_VALUE - 8, 2L * a.length));
+            }
+            while ((x & ~0x7f) != 0) {
+                a[size++] = (byte) ((x & 0x7f) | 0x80);
+                x >>>= 7;
+            }
+            a[size++] = (byte) x;
+        }
+
+        byte[] trim() {
+            return Arrays.copyOf(a, size);
+        }
+    }
+}
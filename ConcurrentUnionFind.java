@@ -0,0 +1,55 @@
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// lock-free disjoint sets for vertices 1..n. a root is linked under the other
+// root with a compareAndSet that only succeeds while it is still a root, and
+// find halves paths with compareAndSet so racing threads never undo each other
+class ConcurrentUnionFind {
+    private final AtomicIntegerArray parent;
+
+    public ConcurrentUnionFind(int n) {
+        parent = new AtomicIntegerArray(n + 1);
+        for (int i = 0; i <= n; ++i)
+            parent.set(i, i);
+    }
+
+    public int find(int x) {
+        int p = parent.get(x);
+        while (p != x) {
+            int gp = parent.get(p);
+            if (gp != p)
+                parent.compareAndSet(x, p, gp); // path halving
+            x = p;
+            p = parent.get(x);
+        }
+        return x;
+    }
+
+    public boolean sameSet(int a, int b) {
+        while (true) {
+            int ra = find(a), rb = find(b);
+            if (ra == rb)
+                return true;
+            // ra may have been linked since it was found, only trust a live root
+            if (parent.get(ra) == ra)
+                return false;
+        }
+    }
+
+    // merge the sets of a and b, true if this call joined two different sets
+    public boolean union(int a, int b) {
+        while (true) {
+            int ra = find(a), rb = find(b);
+            if (ra == rb)
+                return false;
+
+            // always hang the larger index under the smaller so no cycle can form
+            if (ra < rb) {
+                int t = ra;
+                ra = rb;
+                rb = t;
+            }
+            if (parent.compareAndSet(ra, ra, rb))
+                return true;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+// connected components, bridges and articulation points in one depth first
+// pass (Tarjan's low-link). low[v] is the smallest discovery time reachable
+// from v's subtree with at most one back edge. a tree edge p - v is a bridge
+// when low[v] > disc[p], and p is an articulation point when low[v] >= disc[p]
+// for some child v, or when p is a root with more than one child.
+// parallel edges count as separate edges, so a doubled edge is never a bridge
+class Connectivity implements DepthFirstSearch.Visitor {
+    private final int V;
+    private final int[] disc, low, parent;
+    private final boolean[] parentEdgeSeen; // the first edge back to the parent is the tree edge
+    private final int[] rootChildren;
+    private final IntList bridges = new IntList(); // pairs p, v
+    private int time;
+
+    public final int[] component;           // component[v] in 1 .. components
+    public final boolean[] articulation;
+    public int components;
+
+    public Connectivity(Graph g) {
+        V = g.vertices();
+        disc = new int[V + 1];
+        low = new int[V + 1];
+        parent = new int[V + 1];
+        parentEdgeSeen = new boolean[V + 1];
+        rootChildren = new int[V + 1];
+        component = new int[V + 1];
+        articulation = new boolean[V + 1];
+
+        DepthFirstSearch dfs = new DepthFirstSearch(g);
+        dfs.begin();
+        for (int v = 1; v <= V; ++v) {
+            if (!dfs.discovered(v)) {
+                ++components;
+                dfs.visit(v, this);
+            }
+        }
+    }
+
+    public void discover(int v, int p) {
+        disc[v] = low[v] = ++time;
+        parent[v] = p;
+        component[v] = components;
+    }
+
+    public void nonTreeEdge(int v, int u) {
+        if (u == parent[v] && !parentEdgeSeen[v]) {
+            parentEdgeSeen[v] = true;
+            return;
+        }
+        low[v] = Math.min(low[v], disc[u]);
+    }
+
+    public void finish(int v, int p) {
+        if (p == -1) {
+            articulation[v] = rootChildren[v] > 1;
+            return;
+        }
+        low[p] = Math.min(low[p], low[v]);
+        if (low[v] > disc[p]) {
+            bridges.add(p);
+            bridges.add(v);
+        }
+        if (parent[p] == -1)
+            ++rootChildren[p];
+        else if (low[v] >= disc[p])
+            articulation[p] = true;
+    }
+
+    public int bridgeCount() {
+        return bridges.size / 2;
+    }
+
+    // ends of bridge i, parent side first
+    public int bridgeFrom(int i) {
+        return bridges.a[2 * i];
+    }
+
+    public int bridgeTo(int i) {
+        return bridges.a[2 * i + 1];
+    }
+
+    public boolean sameComponent(int u, int v) {
+        return component[u] == component[v];
+    }
+}
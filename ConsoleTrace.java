@@ -0,0 +1,39 @@
+// prints the step by step trace of the algorithms to the console
+class ConsoleTrace implements AlgorithmListener {
+    public void edgeLoaded(int u, int v, int wgt) {
+        System.out.println("Edge " + toChar(u) + "--(" + wgt + ")--" + toChar(v));
+    }
+
+    public void started(Algorithm alg, int source) {
+        if (alg == Algorithm.KRUSKAL)
+            System.out.println("\nSteps of Kruskal:");
+    }
+
+    public void vertexSettled(Algorithm alg, int v, int parent, int step) {
+        if (alg != Algorithm.PRIM)
+            return;
+        if (parent == -1)
+            System.out.println("\nStep " + step + ": Vertex " + toChar(v) + " added to MST");
+        else
+            System.out.println("Step " + step + ": Edge " + toChar(parent) + " -> " + toChar(v) + " added to MST");
+    }
+
+    public void edgeAccepted(Algorithm alg, int u, int v, int wgt) {
+        if (alg == Algorithm.KRUSKAL)
+            System.out.println("\n" + toChar(u) + "-" + wgt + "-" + toChar(v));
+    }
+
+    public void edgeRejected(Algorithm alg, int u, int v, int wgt) {
+        if (alg == Algorithm.KRUSKAL)
+            System.out.println("\n" + toChar(u) + "-" + wgt + "-" + toChar(v));
+    }
+
+    public void setsChanged(UnionFindSets sets) {
+        sets.showSets();
+    }
+
+    // convert vertex into char for pretty printing
+    private char toChar(int vertex) {
+        return (char) (vertex + 64); // assuming vertices are represented as integers starting from 1
+    }
+}
@@ -0,0 +1,671 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+// contraction hierarchies for fast s-t distance queries on a fixed graph.
+//
+// preprocessing contracts the vertices one at a time in order of importance.
+// contracting v removes it and, for every pair of neighbours u, w whose
+// shortest u-w path ran through v, adds a shortcut u -- w with middle vertex v.
+// a vertex's rank is its place in that order and the edges it still had when
+// it was contracted become its upward edges. a query then runs Dijkstra from
+// s and from t over upward edges only, and the two searches meet at the
+// highest ranked vertex of a shortest path.
+//
+// the hierarchy is immutable once built, queries borrow their scratch arrays
+// from a pool. a ThreadLocal would pin the hierarchy to every pool thread
+class ContractionHierarchy {
+    private static final int MAGIC = 0x31484347; // "GCH1"
+
+    final int V;
+    final int[] rank;      // rank[v] = position of v in the contraction order
+    final int[] upOff;     // upward edges of v are upOff[v] .. upOff[v + 1] - 1
+    final int[] upTo;
+    final int[] upWgt;
+    final int[] upMid;     // middle vertex of a shortcut, 0 for an original edge
+
+    private final ConcurrentLinkedQueue<Query> queries = new ConcurrentLinkedQueue<>(); // idle scratch space
+
+    private ContractionHierarchy(int _V, int[] _rank, int[] _upOff, int[] _upTo, int[] _upWgt, int[] _upMid) {
+        V = _V;
+        rank = _rank;
+        upOff = _upOff;
+        upTo = _upTo;
+        upWgt = _upWgt;
+        upMid = _upMid;
+    }
+
+    public static ContractionHierarchy build(Graph g) {
+        return build(g, 500);
+    }
+
+    // settleLimit caps every witness search, a lower limit builds faster but adds more shortcuts
+    public static ContractionHierarchy build(Graph g, int settleLimit) {
+        if (g.minWeight() < 0)
+            throw new IllegalArgumentException("contraction hierarchies need non-negative edge weights");
+        return new Builder(g, settleLimit).build();
+    }
+
+    // s-t distance, Integer.MAX_VALUE if t cannot be reached
+    public int distance(int s, int t) {
+        Query q = borrow();
+        try {
+            return q.run(s, t);
+        } finally {
+            queries.offer(q);
+        }
+    }
+
+    // the s .. t path with every shortcut unpacked, empty if t cannot be reached
+    public int[] path(int s, int t) {
+        Query q = borrow();
+        try {
+            if (q.run(s, t) == Integer.MAX_VALUE)
+                return new int[0];
+            return q.unpack();
+        } finally {
+            queries.offer(q);
+        }
+    }
+
+    private Query borrow() {
+        Query q = queries.poll();
+        return q != null ? q : new Query();
+    }
+
+    // no of upward edges, original and shortcut
+    public int upwardEdges() {
+        return upTo.length;
+    }
+
+    // ---- persistence ----
+
+    public void save(String file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(V);
+            out.writeInt(upTo.length);
+            for (int x : rank)
+                out.writeInt(x);
+            for (int x : upOff)
+                out.writeInt(x);
+            for (int i = 0; i < upTo.length; ++i) {
+                out.writeInt(upTo[i]);
+                out.writeInt(upWgt[i]);
+                out.writeInt(upMid[i]);
+            }
+        }
+    }
+
+    public static ContractionHierarchy load(String file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " is not a contraction hierarchy");
+            int V = in.readInt();
+            int M = in.readInt();
+            int[] rank = new int[V + 1];
+            int[] upOff = new int[V + 2];
+            int[] upTo = new int[M], upWgt = new int[M], upMid = new int[M];
+            for (int i = 0; i <= V; ++i)
+                rank[i] = in.readInt();
+            for (int i = 0; i <= V + 1; ++i)
+                upOff[i] = in.readInt();
+            for (int i = 0; i < M; ++i) {
+                upTo[i] = in.readInt();
+                upWgt[i] = in.readInt();
+                upMid[i] = in.readInt();
+            }
+            return new ContractionHierarchy(V, rank, upOff, upTo, upWgt, upMid);
+        }
+    }
+
+    // preprocess a graph and save the hierarchy, e.g. "java ContractionHierarchy wGraph1.txt wGraph1.ch"
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: java ContractionHierarchy <edge file> <hierarchy file>");
+            System.exit(1);
+        }
+        Graph g = new Graph(args[0], Graph.Storage.CSR);
+        long begin = System.nanoTime();
+        ContractionHierarchy ch = build(g);
+        ch.save(args[1]);
+        System.out.printf("Contracted %d vertices, %d upward edges (%d edges in the graph) in %.1f ms%n",
+                ch.V, ch.upwardEdges(), g.edges(), (System.nanoTime() - begin) / 1e6);
+    }
+
+    // ---- queries ----
+
+    // scratch for one query at a time: a forward and a backward upward search
+    private class Query {
+        final Side fwd = new Side(), bwd = new Side();
+        int epoch, meet;
+
+        int run(int s, int t) {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(fwd.stamp, 0);
+                Arrays.fill(bwd.stamp, 0);
+                epoch = 1;
+            }
+            fwd.begin(s, epoch);
+            bwd.begin(t, epoch);
+            int best = s == t ? 0 : Integer.MAX_VALUE;
+            meet = s;
+
+            // each side stops once its smallest key cannot improve on best
+            while (true) {
+                boolean f = !fwd.isEmpty() && fwd.topKey() < best;
+                boolean b = !bwd.isEmpty() && bwd.topKey() < best;
+                if (!f && !b)
+                    break;
+                Side side = f && (!b || fwd.topKey() <= bwd.topKey()) ? fwd : bwd;
+                Side other = side == fwd ? bwd : fwd;
+
+                int v = side.settle();
+                if (other.stamp[v] == epoch && (long) side.dist[v] + other.dist[v] < best) {
+                    best = side.dist[v] + other.dist[v];
+                    meet = v;
+                }
+            }
+            return best;
+        }
+
+        // walk both parent chains to the meeting vertex and expand the shortcuts on the way
+        int[] unpack() {
+            IntList route = new IntList();
+            IntList up = new IntList();
+            for (int v = meet; v != -1; v = fwd.parent[v])
+                up.add(v);
+            for (int i = up.size - 1; i > 0; --i)
+                expand(up.a[i], up.a[i - 1], route);
+            int v = meet;
+            for (; bwd.parent[v] != -1; v = bwd.parent[v])
+                expand(v, bwd.parent[v], route);
+            route.add(v);
+            return Arrays.copyOf(route.a, route.size);
+        }
+
+        // append the unpacked path a .. b, without b itself, to route
+        private void expand(int a, int b, IntList route) {
+            IntList stack = new IntList();
+            stack.add(a);
+            stack.add(b);
+            while (stack.size > 0) {
+                int y = stack.a[--stack.size];
+                int x = stack.a[--stack.size];
+                int mid = middle(x, y);
+                if (mid == 0) {
+                    route.add(x);
+                } else {
+                    // second half goes on first so the first half is expanded first
+                    stack.add(mid);
+                    stack.add(y);
+                    stack.add(x);
+                    stack.add(mid);
+                }
+            }
+        }
+    }
+
+    // middle vertex of the upward edge between x and y, stored with the lower ranked end
+    private int middle(int x, int y) {
+        int lo = rank[x] < rank[y] ? x : y;
+        int hi = lo == x ? y : x;
+        int i = upOff[lo];
+        while (upTo[i] != hi)
+            ++i;
+        return upMid[i];
+    }
+
+    // one direction of a query, Dijkstra over upward edges with epoch stamps
+    private class Side {
+        final int[] stamp = new int[V + 1];
+        final int[] dist = new int[V + 1];
+        final int[] parent = new int[V + 1];
+        final int[] hPos = new int[V + 1];
+        final int[] a = new int[V + 1];
+        int N, epoch;
+
+        void begin(int s, int _epoch) {
+            epoch = _epoch;
+            N = 0;
+            stamp[s] = epoch;
+            dist[s] = 0;
+            parent[s] = -1;
+            hPos[s] = 0;
+            push(s);
+        }
+
+        boolean isEmpty() {
+            return N == 0;
+        }
+
+        int topKey() {
+            return dist[a[1]];
+        }
+
+        // settle the closest vertex and relax its upward edges
+        int settle() {
+            int v = a[1];
+            hPos[v] = 0;
+            int last = a[N--];
+            if (N > 0) {
+                int k = 1, j;
+                while (2 * k <= N) {
+                    j = 2 * k;
+                    if (j < N && dist[a[j + 1]] < dist[a[j]])
+                        j++;
+                    if (dist[last] <= dist[a[j]])
+                        break;
+                    a[k] = a[j];
+                    hPos[a[k]] = k;
+                    k = j;
+                }
+                a[k] = last;
+                hPos[last] = k;
+            }
+
+            for (int i = upOff[v]; i < upOff[v + 1]; ++i) {
+                int u = upTo[i];
+                int d = dist[v] + upWgt[i];
+                if (stamp[u] != epoch) {
+                    stamp[u] = epoch;
+                    dist[u] = d;
+                    parent[u] = v;
+                    hPos[u] = 0;
+                    push(u);
+                } else if (d < dist[u]) {
+                    dist[u] = d;
+                    parent[u] = v;
+                    push(u);
+                }
+            }
+            return v;
+        }
+
+        private void push(int v) {
+            int k = hPos[v];
+            if (k == 0) {
+                k = ++N;
+                a[k] = v;
+            }
+            while (k > 1 && dist[v] < dist[a[k / 2]]) {
+                a[k] = a[k / 2];
+                hPos[a[k]] = k;
+                k = k / 2;
+            }
+            a[k] = v;
+            hPos[v] = k;
+        }
+    }
+
+    // ---- preprocessing ----
+
+    private static class Builder {
+        private static final int PARALLEL_DEGREE = 32;
+
+        final int V;
+        final int settleLimit;
+        final int[][] nbr, wgt, mid; // current edges of every vertex, shortcuts included
+        final int[] deg;
+        final boolean[] contracted;
+        final int[] deleted;         // contracted neighbours so far, spreads the order out
+        final int[] priority;
+        final ConcurrentLinkedQueue<Witness> witnesses = new ConcurrentLinkedQueue<>(); // idle searches
+
+        Builder(Graph g, int _settleLimit) {
+            V = g.vertices();
+            settleLimit = _settleLimit;
+            nbr = new int[V + 1][];
+            wgt = new int[V + 1][];
+            mid = new int[V + 1][];
+            deg = new int[V + 1];
+            contracted = new boolean[V + 1];
+            deleted = new int[V + 1];
+            priority = new int[V + 1];
+
+            EdgeCursor t = g.adjacency().cursor();
+            for (int v = 1; v <= V; ++v) {
+                int d = g.adjacency().degree(v);
+                nbr[v] = new int[Math.max(d, 1)];
+                wgt[v] = new int[Math.max(d, 1)];
+                mid[v] = new int[Math.max(d, 1)];
+                t.start(v);
+                while (t.next())
+                    if (t.vert != v)
+                        addArc(v, t.vert, t.wgt, 0);
+            }
+        }
+
+        ContractionHierarchy build() {
+            // the initial priorities need a simulated contraction each, done in parallel
+            IntStream.rangeClosed(1, V).parallel().forEach(v -> priority[v] = computePriority(v));
+
+            LongHeap queue = new LongHeap(V);
+            for (int v = 1; v <= V; ++v)
+                queue.add(key(priority[v], v));
+
+            int[] rank = new int[V + 1];
+            int[] upCount = new int[V + 2];
+            int[][] upN = new int[V + 1][], upW = new int[V + 1][], upM = new int[V + 1][];
+            int order = 0;
+
+            while (queue.size() > 0) {
+                long top = queue.poll();
+                int v = (int) top;
+                if (contracted[v] || (int) (top >>> 32) != priority[v] + (1 << 30))
+                    continue; // stale entry
+
+                // lazy update: a vertex whose priority rose goes back in the queue
+                int p = computePriority(v);
+                if (p != priority[v]) {
+                    priority[v] = p;
+                    queue.add(key(p, v));
+                    continue;
+                }
+
+                // v's remaining edges become its upward edges
+                int n = 0;
+                for (int i = 0; i < deg[v]; ++i)
+                    if (!contracted[nbr[v][i]])
+                        ++n;
+                upN[v] = new int[n];
+                upW[v] = new int[n];
+                upM[v] = new int[n];
+                n = 0;
+                for (int i = 0; i < deg[v]; ++i) {
+                    if (!contracted[nbr[v][i]]) {
+                        upN[v][n] = nbr[v][i];
+                        upW[v][n] = wgt[v][i];
+                        upM[v][n++] = mid[v][i];
+                    }
+                }
+                upCount[v + 1] = n;
+
+                contract(v);
+                contracted[v] = true;
+                rank[v] = order++;
+
+                // a neighbour lost an edge and gained a contracted neighbour, bump it
+                // now and let the lazy check above recompute its edge difference
+                for (int u : upN[v]) {
+                    deleted[u]++;
+                    priority[u]++;
+                    queue.add(key(priority[u], u));
+                }
+            }
+
+            // pack the upward edges as CSR
+            for (int v = 1; v <= V + 1; ++v)
+                upCount[v] += upCount[v - 1];
+            int M = upCount[V + 1];
+            int[] upTo = new int[M], upWgt = new int[M], upMid = new int[M];
+            for (int v = 1; v <= V; ++v) {
+                System.arraycopy(upN[v], 0, upTo, upCount[v], upN[v].length);
+                System.arraycopy(upW[v], 0, upWgt, upCount[v], upW[v].length);
+                System.arraycopy(upM[v], 0, upMid, upCount[v], upM[v].length);
+            }
+            return new ContractionHierarchy(V, rank, upCount, upTo, upWgt, upMid);
+        }
+
+        private static long key(int priority, int v) {
+            return ((long) (priority + (1 << 30)) << 32) | v;
+        }
+
+        // edge difference plus contracted neighbours, smaller is contracted first
+        int computePriority(int v) {
+            int live = 0;
+            for (int i = 0; i < deg[v]; ++i)
+                if (!contracted[nbr[v][i]])
+                    ++live;
+            int shortcuts = shortcuts(v);
+            return 2 * shortcuts - live + deleted[v];
+        }
+
+        void contract(int v) {
+            // the witness searches only read the graph, run them in parallel when v
+            // has many neighbours and add the shortcuts afterwards
+            int[][] found = new int[deg[v]][];
+            IntStream range = IntStream.range(0, deg[v]);
+            (deg[v] >= PARALLEL_DEGREE ? range.parallel() : range).forEach(i -> found[i] = needed(v, i));
+            for (int i = 0; i < deg[v]; ++i) {
+                for (int k = 0; found[i] != null && k < found[i].length; k += 2) {
+                    addArc(nbr[v][i], found[i][k], found[i][k + 1], v);
+                    addArc(found[i][k], nbr[v][i], found[i][k + 1], v);
+                }
+            }
+        }
+
+        // no of shortcuts contracting v would add
+        int shortcuts(int v) {
+            int count = 0;
+            for (int i = 0; i < deg[v]; ++i) {
+                int[] found = needed(v, i);
+                if (found != null)
+                    count += found.length / 2;
+            }
+            return count;
+        }
+
+        // shortcuts from the i-th neighbour u of v to the neighbours after it, as
+        // (w, weight) pairs, or null when every pair has a witness
+        int[] needed(int v, int i) {
+            int u = nbr[v][i];
+            if (contracted[u])
+                return null;
+
+            // one search from u answers every pair u, w with w later in the list
+            Witness ws = witnesses.poll();
+            if (ws == null)
+                ws = new Witness(V);
+            try {
+                return needed(v, i, u, ws);
+            } finally {
+                witnesses.offer(ws);
+            }
+        }
+
+        private int[] needed(int v, int i, int u, Witness ws) {
+            ws.begin(u);
+            int limit = 0;
+            for (int j = i + 1; j < deg[v]; ++j) {
+                int w = nbr[v][j];
+                if (!contracted[w] && w != u) {
+                    ws.target(w);
+                    limit = Math.max(limit, wgt[v][i] + wgt[v][j]);
+                }
+            }
+            if (ws.remaining == 0)
+                return null;
+            ws.search(this, v, limit);
+
+            IntList found = null;
+            for (int j = i + 1; j < deg[v]; ++j) {
+                int w = nbr[v][j];
+                int via = wgt[v][i] + wgt[v][j];
+                if (!contracted[w] && w != u && ws.dist(w) > via) {
+                    if (found == null)
+                        found = new IntList();
+                    found.add(w);
+                    found.add(via);
+                }
+            }
+            return found == null ? null : Arrays.copyOf(found.a, found.size);
+        }
+
+        // add u -> w, or lower the weight of an existing u -> w
+        void addArc(int u, int w, int weight, int middle) {
+            for (int i = 0; i < deg[u]; ++i) {
+                if (nbr[u][i] == w) {
+                    if (weight < wgt[u][i]) {
+                        wgt[u][i] = weight;
+                        mid[u][i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (deg[u] == nbr[u].length) {
+                int n = nbr[u].length * 2;
+                nbr[u] = Arrays.copyOf(nbr[u], n);
+                wgt[u] = Arrays.copyOf(wgt[u], n);
+                mid[u] = Arrays.copyOf(mid[u], n);
+            }
+            nbr[u][deg[u]] = w;
+            wgt[u][deg[u]] = weight;
+            mid[u][deg[u]++] = middle;
+        }
+    }
+
+    // bounded Dijkstra that looks for paths avoiding the vertex being contracted,
+    // it stops once every target is settled, past the distance limit or after settleLimit vertices
+    private static class Witness {
+        final int[] stamp, dist, hPos, a;
+        final int[] wanted;  // wanted[v] == epoch while v is a target of this search
+        int N, epoch, remaining;
+
+        Witness(int V) {
+            stamp = new int[V + 1];
+            dist = new int[V + 1];
+            hPos = new int[V + 1];
+            a = new int[V + 1];
+            wanted = new int[V + 1];
+        }
+
+        int dist(int v) {
+            return stamp[v] == epoch ? dist[v] : Integer.MAX_VALUE;
+        }
+
+        void begin(int s) {
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                Arrays.fill(wanted, 0);
+                epoch = 1;
+            }
+            N = 0;
+            remaining = 0;
+            stamp[s] = epoch;
+            dist[s] = 0;
+            hPos[s] = 0;
+            push(s);
+        }
+
+        void target(int w) {
+            if (wanted[w] != epoch) {
+                wanted[w] = epoch;
+                ++remaining;
+            }
+        }
+
+        void search(Builder b, int avoid, int limit) {
+            int settled = 0;
+            while (N > 0 && settled++ < b.settleLimit) {
+                int v = pop();
+                if (dist[v] > limit)
+                    break;
+                if (wanted[v] == epoch && --remaining == 0)
+                    break;
+                for (int i = 0; i < b.deg[v]; ++i) {
+                    int u = b.nbr[v][i];
+                    if (u == avoid || b.contracted[u])
+                        continue;
+                    int d = dist[v] + b.wgt[v][i];
+                    if (stamp[u] != epoch) {
+                        stamp[u] = epoch;
+                        dist[u] = d;
+                        hPos[u] = 0;
+                        push(u);
+                    } else if (d < dist[u]) {
+                        dist[u] = d;
+                        if (hPos[u] != 0)
+                            push(u);
+                    }
+                }
+            }
+        }
+
+        private void push(int v) {
+            int k = hPos[v];
+            if (k == 0) {
+                k = ++N;
+                a[k] = v;
+            }
+            while (k > 1 && dist[v] < dist[a[k / 2]]) {
+                a[k] = a[k / 2];
+                hPos[a[k]] = k;
+                k = k / 2;
+            }
+            a[k] = v;
+            hPos[v] = k;
+        }
+
+        private int pop() {
+            int v = a[1];
+            hPos[v] = 0;
+            int last = a[N--];
+            if (N > 0) {
+                int k = 1, j;
+                while (2 * k <= N) {
+                    j = 2 * k;
+                    if (j < N && dist[a[j + 1]] < dist[a[j]])
+                        j++;
+                    if (dist[last] <= dist[a[j]])
+                        break;
+                    a[k] = a[j];
+                    hPos[a[k]] = k;
+                    k = j;
+                }
+                a[k] = last;
+                hPos[last] = k;
+            }
+            return v;
+        }
+    }
+
+    // binary min-heap of longs for the contraction order
+    private static class LongHeap {
+        long[] a;
+        int N;
+
+        LongHeap(int capacity) {
+            a = new long[Math.max(capacity, 1) + 1];
+        }
+
+        int size() {
+            return N;
+        }
+
+        void add(long x) {
+            if (++N == a.length)
+                a = Arrays.copyOf(a, a.length * 2);
+            int k = N;
+            while (k > 1 && x < a[k / 2]) {
+                a[k] = a[k / 2];
+                k = k / 2;
+            }
+            a[k] = x;
+        }
+
+        long poll() {
+            long top = a[1];
+            long last = a[N--];
+            int k = 1, j;
+            while (2 * k <= N) {
+                j = 2 * k;
+                if (j < N && a[j + 1] < a[j])
+                    j++;
+                if (last <= a[j])
+                    break;
+                a[k] = a[j];
+                k = j;
+            }
+            a[k] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+// indexed d-ary heap, a wider node keeps the heap shallower so decrease-key
+// walks fewer levels and the children of a node share cache lines
+class DaryHeap implements VertexQueue {
+    private final int d;        // children per node
+    private final int[] a;      // heap array, a[1] is the root
+    private final int[] hPos;   // hPos[a[k]] == k, 0 when not in the heap
+    private final int[] dist;   // dist[v] = priority of v
+    private int N;              // heap size
+    private long siftUps, siftDowns; // calls, counted with Metrics.ENABLED
+
+    public DaryHeap(int _d, int maxSize, int[] _dist, int[] _hPos) {
+        d = _d;
+        N = 0;
+        a = new int[maxSize + 1];
+        dist = _dist;
+        hPos = _hPos;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    public boolean contains(int v) {
+        return hPos[v] != 0;
+    }
+
+    public long siftUps() {
+        return siftUps;
+    }
+
+    public long siftDowns() {
+        return siftDowns;
+    }
+
+    public void insert(int v) {
+        a[++N] = v;
+        siftUp(N);
+    }
+
+    public void decreaseKey(int v) {
+        siftUp(hPos[v]);
+    }
+
+    public int remove() {
+        int v = a[1];
+        hPos[v] = 0;
+        a[1] = a[N];
+        a[N--] = 0;
+        if (N > 0)
+            siftDown(1);
+        return v;
+    }
+
+    // the parent of k is (k - 2) / d + 1 and its children start at d * (k - 1) + 2
+    private void siftUp(int k) {
+        int v = a[k];
+        if (Metrics.ENABLED)
+            ++siftUps;
+        while (k > 1) {
+            int p = (k - 2) / d + 1;
+            if (dist[v] >= dist[a[p]])
+                break;
+            a[k] = a[p];
+            hPos[a[k]] = k;
+            k = p;
+        }
+        a[k] = v;
+        hPos[v] = k;
+    }
+
+    private void siftDown(int k) {
+        int v = a[k];
+        if (Metrics.ENABLED)
+            ++siftDowns;
+        while (true) {
+            int first = d * (k - 1) + 2;
+            if (first > N)
+                break;
+
+            // smallest of the up to d children
+            int last = Math.min(first + d - 1, N);
+            int j = first;
+            for (int c = first + 1; c <= last; ++c)
+                if (dist[a[c]] < dist[a[j]])
+                    j = c;
+
+            if (dist[v] <= dist[a[j]])
+                break;
+            a[k] = a[j];
+            hPos[a[k]] = k;
+            k = j;
+        }
+        a[k] = v;
+        hPos[v] = k;
+    }
+}
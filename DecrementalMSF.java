@@ -0,0 +1,635 @@
+import java.util.Arrays;
+
+// decremental minimum spanning forest of Holm, de Lichtenberg and Thorup.
+// every edge has a level, 0 when it is added, that only ever goes up. F_i,
+// the tree edges of level i or more, is kept as an Euler tour forest per
+// level, and every tree of F_i has at most V / 2^i vertices, so there are
+// about log V levels. deleting tree edge e of level l cuts it at levels
+// 0 .. l, then for i = l down to 0 takes the smaller side T of the cut at
+// level i, lifts T's level i tree edges to i + 1 and goes through the level i
+// non-tree edges at T lightest first: one with both ends in T is lifted too,
+// the first leaving T is the replacement. lifts pay for the search, so a
+// deletion costs O(log^2 V) amortised. the heaviest edge of every cycle has
+// the lowest level on it, which makes the first edge found the lightest
+// across the cut. insertions would break that, so edges only come in through
+// add() while the forest is being built, and the first delete() lays out the
+// level 0 tours of all of them in one pass
+class DecrementalMSF {
+    private final int V;
+    private final int L; // levels 0 .. L - 1
+
+    // per edge id
+    private int[] from = new int[16], to = new int[16], level = new int[16];
+    private long[] key = new long[16];
+    private boolean[] present = new boolean[16], tree = new boolean[16];
+    private int[][] arcs = new int[16][]; // arcs[id][2i], arcs[id][2i + 1]: the tour nodes of tree edge id at level i
+
+    // per level, allocated when the level is first used
+    private final int[][] vnode;         // tour node of v at level i, 0 until v first gets a tree edge there
+    private final int[][] treeCount;     // tree edges of level exactly i at v
+    private final IntStack[][] treeEdges; // the same edges, cleaned lazily
+    private final LongHeap[][] nonTree;  // keys of the level i non-tree edges at v, cleaned lazily
+
+    // Euler tour nodes kept in splay trees by tour order, 0 is null. a tour
+    // holds one node per vertex and two arc nodes per tree edge, vertex
+    // nodes carry the lightest non-tree key and whether a level i tree edge
+    // is at the vertex, the subtree aggregates let the search jump to both
+    private int[] left = new int[64], right = new int[64], up = new int[64];
+    private int[] count = new int[64];        // vertex nodes in the subtree
+    private int[] vertex = new int[64];       // 0 for arc nodes
+    private long[] ownKey = new long[64], minKey = new long[64];
+    private boolean[] ownTree = new boolean[64], anyTree = new boolean[64];
+    private int nodes = 1;
+    private int[] free = new int[16];
+    private int freeCount;
+    private int added = -1;      // highest id added so far
+    private boolean laidOut;
+
+    public DecrementalMSF(int _V) {
+        V = _V;
+        L = 33 - Integer.numberOfLeadingZeros(Math.max(1, V));
+        vnode = new int[L][];
+        treeCount = new int[L][];
+        treeEdges = new IntStack[L][];
+        nonTree = new LongHeap[L][];
+        minKey[0] = Long.MAX_VALUE;
+    }
+
+    // adds edge id at level 0 while the forest is built. the tree edges have
+    // to form a minimum spanning forest of everything added, keys are unique
+    public void add(int id, int u, int v, long k, boolean inTree) {
+        if (laidOut)
+            throw new IllegalStateException("edges can only be added before the first delete");
+        if (id >= from.length) {
+            int n = Math.max(id + 1, from.length * 2);
+            from = Arrays.copyOf(from, n);
+            to = Arrays.copyOf(to, n);
+            level = Arrays.copyOf(level, n);
+            key = Arrays.copyOf(key, n);
+            present = Arrays.copyOf(present, n);
+            tree = Arrays.copyOf(tree, n);
+            arcs = Arrays.copyOf(arcs, n);
+        }
+        from[id] = u;
+        to[id] = v;
+        level[id] = 0;
+        key[id] = k;
+        present[id] = true;
+        tree[id] = inTree;
+        added = Math.max(added, id);
+    }
+
+    public boolean inTree(int id) {
+        return id < from.length && present[id] && tree[id];
+    }
+
+    // removes edge id, returns the edge that took its place in the forest or -1
+    public int delete(int id) {
+        if (!laidOut)
+            layout();
+        present[id] = false;
+        int u = from[id], v = to[id];
+        if (!tree[id]) {
+            if (u != v) {
+                refresh(level[id], u);
+                refresh(level[id], v);
+            }
+            return -1;
+        }
+        tree[id] = false;
+        int l = level[id];
+        for (int i = 0; i <= l; ++i)
+            cut(arcs[id][2 * i], arcs[id][2 * i + 1]);
+        arcs[id] = null;
+        --treeCount[l][u];
+        --treeCount[l][v];
+        refresh(l, u);
+        refresh(l, v);
+
+        for (int i = l; i >= 0; --i) {
+            int s = size(i, u) <= size(i, v) ? u : v;
+
+            // the smaller side moves up a level, its level i tree edges first
+            for (int x; (x = vnode[i][s]) != 0; ) {
+                splay(x);
+                if (!anyTree[x])
+                    break;
+                int w = vertex[findTree(x)];
+                int e = treeEdges[i][w].pop();
+                while (!present[e] || !tree[e] || level[e] != i)
+                    e = treeEdges[i][w].pop();
+                liftTree(e, i);
+            }
+
+            // then its non-tree edges, lightest first
+            while (true) {
+                int w;
+                int x = vnode[i][s];
+                if (x != 0) {
+                    splay(x);
+                    if (minKey[x] == Long.MAX_VALUE)
+                        break;
+                    w = vertex[findMin(x)];
+                } else {
+                    if (nonTree[i] == null || nonTree[i][s] == null || nonTree[i][s].isEmpty())
+                        break;
+                    w = s;
+                }
+                int e = (int) nonTree[i][w].pop();
+                int y = from[e] == w ? to[e] : from[e];
+                boolean inside = connected(i, w, y);
+                // the state changes first, so the refresh sees e as gone from level i
+                if (inside)
+                    level[e] = i + 1;
+                else
+                    tree[e] = true;
+                refresh(i, w);
+                refresh(i, y);
+                if (!inside) {
+                    makeTree(e, i);
+                    return e;
+                }
+                pushNonTree(e, i + 1);
+            }
+        }
+        return -1;
+    }
+
+    // ---- levels ----
+
+    // every added edge goes to level 0: the tree edges as one depth first
+    // Euler tour per tree, built straight into balanced splay trees
+    private void layout() {
+        int n = added + 1;
+        laidOut = true;
+        ensureLevel(0);
+        // count first so every stack and heap is allocated once at its size
+        int[] start = new int[V + 2], other = new int[V + 1];
+        for (int id = 0; id < n; ++id) {
+            if (present[id] && tree[id]) {
+                ++start[from[id] + 1];
+                ++start[to[id] + 1];
+            } else if (present[id] && from[id] != to[id]) {
+                ++other[from[id]];
+                ++other[to[id]];
+            }
+        }
+        for (int v = 1; v <= V; ++v) {
+            treeCount[0][v] = start[v + 1];
+            if (start[v + 1] > 0)
+                treeEdges[0][v] = new IntStack(start[v + 1]);
+            if (other[v] > 0)
+                nonTree[0][v] = new LongHeap(other[v]);
+        }
+        for (int v = 1; v <= V + 1; ++v)
+            start[v] += start[v - 1];
+        int[] incident = new int[start[V + 1]];
+        for (int id = 0; id < n; ++id) {
+            int u = from[id], v = to[id];
+            if (present[id] && tree[id]) {
+                arcs[id] = new int[2];
+                treeEdges[0][u].push(id);
+                treeEdges[0][v].push(id);
+                incident[start[u] + treeEdges[0][u].size - 1] = id;
+                incident[start[v] + treeEdges[0][v].size - 1] = id;
+            } else if (present[id] && u != v) {
+                nonTree[0][u].push(key[id]);
+                nonTree[0][v].push(key[id]);
+            }
+        }
+
+        // the tour of one tree: v, then per child c the arc v -> c, the tour
+        // of c and the arc c -> v, 3k - 2 nodes for k vertices. next[] walks
+        // each vertex's edges
+        int[] tour = new int[3 * V], stack = new int[V + 1], via = new int[V + 1], next = new int[V + 1];
+        boolean[] seen = new boolean[V + 1];
+        for (int r = 1; r <= V; ++r) {
+            if (seen[r] || treeCount[0][r] == 0)
+                continue;
+            int len = 0, depth = 0;
+            seen[r] = true;
+            stack[depth++] = r;
+            via[r] = -1;
+            next[r] = start[r];
+            tour[len++] = tourVertex(r);
+            while (depth > 0) {
+                int v = stack[depth - 1];
+                if (next[v] == start[v + 1]) {
+                    --depth;
+                    if (via[v] != -1) {
+                        int x = newNode();
+                        arcs[via[v]][1] = x;
+                        tour[len++] = x;
+                    }
+                    continue;
+                }
+                int e = incident[next[v]++];
+                int c = from[e] == v ? to[e] : from[e];
+                if (seen[c])
+                    continue;
+                seen[c] = true;
+                via[c] = e;
+                next[c] = start[c];
+                stack[depth++] = c;
+                int x = newNode();
+                arcs[e][0] = x;
+                tour[len++] = x;
+                tour[len++] = tourVertex(c);
+            }
+            balance(tour, 0, len);
+        }
+    }
+
+    // the level 0 tour node of v, which has a tree edge there
+    private int tourVertex(int v) {
+        int x = newNode();
+        vertex[x] = v;
+        vnode[0][v] = x;
+        ownKey[x] = nonTree[0][v] == null ? Long.MAX_VALUE : nonTree[0][v].peek();
+        ownTree[x] = true;
+        return x;
+    }
+
+    // links tour[lo .. hi - 1] into a balanced tree in order, returns its root
+    private int balance(int[] tour, int lo, int hi) {
+        if (lo >= hi)
+            return 0;
+        int mid = (lo + hi) >>> 1, x = tour[mid];
+        int l = balance(tour, lo, mid), r = balance(tour, mid + 1, hi);
+        left[x] = l;
+        right[x] = r;
+        if (l != 0)
+            up[l] = x;
+        if (r != 0)
+            up[r] = x;
+        pull(x);
+        return x;
+    }
+
+    private void ensureLevel(int i) {
+        if (vnode[i] == null) {
+            vnode[i] = new int[V + 1];
+            treeCount[i] = new int[V + 1];
+            treeEdges[i] = new IntStack[V + 1];
+            nonTree[i] = new LongHeap[V + 1];
+        }
+    }
+
+    // id becomes a tree edge of level i, linked into the tours of levels 0 .. i
+    private void makeTree(int id, int i) {
+        ensureLevel(i);
+        int u = from[id], v = to[id];
+        level[id] = i;
+        arcs[id] = new int[2 * (i + 1)];
+        for (int j = 0; j <= i; ++j)
+            link(j, id);
+        addTreeEdge(i, u, id);
+        addTreeEdge(i, v, id);
+    }
+
+    // tree edge id of level i moves to level i + 1
+    private void liftTree(int id, int i) {
+        int u = from[id], v = to[id];
+        --treeCount[i][u];
+        --treeCount[i][v];
+        refresh(i, u);
+        refresh(i, v);
+        ensureLevel(i + 1);
+        level[id] = i + 1;
+        arcs[id] = Arrays.copyOf(arcs[id], 2 * (i + 2));
+        link(i + 1, id);
+        addTreeEdge(i + 1, u, id);
+        addTreeEdge(i + 1, v, id);
+    }
+
+    private void addTreeEdge(int i, int v, int id) {
+        if (treeEdges[i][v] == null)
+            treeEdges[i][v] = new IntStack();
+        treeEdges[i][v].push(id);
+        ++treeCount[i][v];
+        refresh(i, v);
+    }
+
+    private void pushNonTree(int id, int i) {
+        ensureLevel(i);
+        for (int v : new int[] { from[id], to[id] }) {
+            if (nonTree[i][v] == null)
+                nonTree[i][v] = new LongHeap();
+            nonTree[i][v].push(key[id]);
+            refresh(i, v);
+        }
+    }
+
+    // drops dead entries off the top of v's heap and brings v's tour node up to date
+    private void refresh(int i, int v) {
+        LongHeap h = nonTree[i][v];
+        while (h != null && !h.isEmpty()) {
+            long k = h.peek();
+            int e = (int) k;
+            if (present[e] && !tree[e] && level[e] == i && key[e] == k)
+                break;
+            h.pop();
+        }
+        int x = vnode[i][v];
+        if (x != 0) {
+            splay(x);
+            ownKey[x] = h == null || h.isEmpty() ? Long.MAX_VALUE : h.peek();
+            ownTree[x] = treeCount[i][v] > 0;
+            pull(x);
+        }
+    }
+
+    private int vertexNode(int i, int v) {
+        int x = vnode[i][v];
+        if (x == 0) {
+            x = newNode();
+            vertex[x] = v;
+            vnode[i][v] = x;
+            refresh(i, v);
+        }
+        return x;
+    }
+
+    // vertices in the level i tree holding v
+    private int size(int i, int v) {
+        int x = vnode[i][v];
+        if (x == 0)
+            return 1;
+        splay(x);
+        return count[x];
+    }
+
+    private boolean connected(int i, int a, int b) {
+        if (a == b)
+            return true;
+        int x = vnode[i][a], y = vnode[i][b];
+        if (x == 0 || y == 0)
+            return false;
+        splay(x);
+        int top = y;
+        while (up[top] != 0)
+            top = up[top];
+        splay(y);
+        return top == x;
+    }
+
+    // ---- Euler tours ----
+
+    // the tour of u's tree rotated to end at u, then u -> v, the tour of v's
+    // tree rotated to start at v, and v -> u
+    private void link(int i, int id) {
+        int u = from[id], v = to[id];
+        int uv = newNode(), vu = newNode();
+        arcs[id][2 * i] = uv;
+        arcs[id][2 * i + 1] = vu;
+        int a = makeLast(vertexNode(i, u));
+        int b = makeFirst(vertexNode(i, v));
+        join(join(join(a, uv), b), vu);
+    }
+
+    // rotated to uv X vu Y, X is one side and Y the other
+    private void cut(int uv, int vu) {
+        makeFirst(uv);
+        splay(vu);
+        int l = left[vu];
+        detachLeft(vu);
+        detachRight(vu);
+        int x = l;
+        while (left[x] != 0)
+            x = left[x];
+        splay(x); // uv, first of the left part
+        detachRight(uv);
+        release(uv);
+        release(vu);
+    }
+
+    private int makeFirst(int x) {
+        splay(x);
+        int l = left[x];
+        detachLeft(x);
+        return join(x, l);
+    }
+
+    private int makeLast(int x) {
+        splay(x);
+        int r = right[x];
+        detachRight(x);
+        return join(r, x);
+    }
+
+    // the tour of a followed by the tour of b, both given by any node, returns the root
+    private int join(int a, int b) {
+        if (a == 0)
+            return b;
+        if (b == 0)
+            return a;
+        splay(a);
+        while (right[a] != 0)
+            a = right[a];
+        splay(a);
+        splay(b);
+        right[a] = b;
+        up[b] = a;
+        pull(a);
+        return a;
+    }
+
+    private void detachLeft(int x) {
+        int l = left[x];
+        if (l != 0) {
+            left[x] = 0;
+            up[l] = 0;
+            pull(x);
+        }
+    }
+
+    private void detachRight(int x) {
+        int r = right[x];
+        if (r != 0) {
+            right[x] = 0;
+            up[r] = 0;
+            pull(x);
+        }
+    }
+
+    // a vertex node in x's subtree holding the lightest key, splayed to the root
+    private int findMin(int x) {
+        long m = minKey[x];
+        while (true) {
+            if (left[x] != 0 && minKey[left[x]] == m)
+                x = left[x];
+            else if (ownKey[x] == m)
+                break;
+            else
+                x = right[x];
+        }
+        splay(x);
+        return x;
+    }
+
+    // a vertex node in x's subtree with a tree edge of the tour's level, splayed to the root
+    private int findTree(int x) {
+        while (true) {
+            if (left[x] != 0 && anyTree[left[x]])
+                x = left[x];
+            else if (ownTree[x])
+                break;
+            else
+                x = right[x];
+        }
+        splay(x);
+        return x;
+    }
+
+    // ---- splay trees ----
+
+    private int newNode() {
+        int x;
+        if (freeCount > 0) {
+            x = free[--freeCount];
+        } else {
+            if (nodes == left.length) {
+                int n = nodes * 2;
+                left = Arrays.copyOf(left, n);
+                right = Arrays.copyOf(right, n);
+                up = Arrays.copyOf(up, n);
+                count = Arrays.copyOf(count, n);
+                vertex = Arrays.copyOf(vertex, n);
+                ownKey = Arrays.copyOf(ownKey, n);
+                minKey = Arrays.copyOf(minKey, n);
+                ownTree = Arrays.copyOf(ownTree, n);
+                anyTree = Arrays.copyOf(anyTree, n);
+            }
+            x = nodes++;
+        }
+        left[x] = right[x] = up[x] = 0;
+        vertex[x] = 0;
+        ownKey[x] = Long.MAX_VALUE;
+        ownTree[x] = false;
+        pull(x);
+        return x;
+    }
+
+    private void release(int x) {
+        if (freeCount == free.length)
+            free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = x;
+    }
+
+    private void pull(int x) {
+        int l = left[x], r = right[x];
+        count[x] = (vertex[x] != 0 ? 1 : 0) + count[l] + count[r];
+        minKey[x] = Math.min(ownKey[x], Math.min(minKey[l], minKey[r]));
+        anyTree[x] = ownTree[x] || anyTree[l] || anyTree[r];
+    }
+
+    private void rotate(int x) {
+        int y = up[x], z = up[y];
+        int b;
+        if (left[y] == x) {
+            b = right[x];
+            left[y] = b;
+            right[x] = y;
+        } else {
+            b = left[x];
+            right[y] = b;
+            left[x] = y;
+        }
+        if (b != 0)
+            up[b] = y;
+        up[y] = x;
+        up[x] = z;
+        if (z != 0) {
+            if (left[z] == y)
+                left[z] = x;
+            else
+                right[z] = x;
+        }
+        pull(y);
+        pull(x);
+    }
+
+    private void splay(int x) {
+        while (up[x] != 0) {
+            int y = up[x], z = up[y];
+            if (z != 0)
+                rotate((left[y] == x) == (left[z] == y) ? y : x);
+            rotate(x);
+        }
+    }
+
+    // ---- small containers ----
+
+    private static final class IntStack {
+        int[] a;
+        int size;
+
+        IntStack() {
+            this(4);
+        }
+
+        IntStack(int capacity) {
+            a = new int[capacity];
+        }
+
+        void push(int x) {
+            if (size == a.length)
+                a = Arrays.copyOf(a, size * 2);
+            a[size++] = x;
+        }
+
+        int pop() {
+            return a[--size];
+        }
+    }
+
+    // binary min-heap of longs
+    private static final class LongHeap {
+        long[] a;
+        int size;
+
+        LongHeap() {
+            this(4);
+        }
+
+        LongHeap(int capacity) {
+            a = new long[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long peek() {
+            return a[0];
+        }
+
+        void push(long x) {
+            if (size == a.length)
+                a = Arrays.copyOf(a, size * 2);
+            int k = size++;
+            while (k > 0 && a[(k - 1) / 2] > x) {
+                a[k] = a[(k - 1) / 2];
+                k = (k - 1) / 2;
+            }
+            a[k] = x;
+        }
+
+        long pop() {
+            long top = a[0];
+            long last = a[--size];
+            int k = 0;
+            while (2 * k + 1 < size) {
+                int j = 2 * k + 1;
+                if (j + 1 < size && a[j + 1] < a[j])
+                    j++;
+                if (last <= a[j])
+                    break;
+                a[k] = a[j];
+                k = j;
+            }
+            a[k] = last;
+            return top;
+        }
+    }
+}
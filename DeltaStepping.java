@@ -0,0 +1,181 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// parallel single source shortest paths by delta-stepping. vertices sit in
+// buckets of width delta, a bucket is emptied by relaxing its light edges
+// (weight <= delta) in parallel rounds until no vertex re-enters it, and then
+// its heavy edges once. dist and parent of each vertex share one long so a
+// single compareAndSet relaxes both; comparing the packed values also gives
+// ties to the lowest numbered parent, matching Graph.shortestPaths
+class DeltaStepping {
+    private static final int LEAF = 256; // vertices relaxed by one task before splitting
+
+    private final Graph g;
+    private final Adjacency adj;
+    private final ForkJoinPool pool;
+    private final int V;
+
+    private AtomicLongArray state; // (dist << 32) | (parent + 1)
+    private int delta;
+
+    public DeltaStepping(Graph _g) {
+        this(_g, ForkJoinPool.commonPool());
+    }
+
+    public DeltaStepping(Graph _g, ForkJoinPool _pool) {
+        g = _g;
+        adj = g.adjacency();
+        pool = _pool;
+        V = g.vertices();
+    }
+
+    // a bucket width that keeps a few edges per vertex light
+    public static int defaultDelta(Graph g) {
+        long avgDegree = Math.max(1, 2L * g.edges() / Math.max(1, g.vertices()));
+        return (int) Math.max(1, g.maxWeight() / avgDegree);
+    }
+
+    // fills dist and parent with the shortest path tree from s
+    public void shortestPaths(int s, int[] dist, int[] parent, int _delta) {
+        if (g.minWeight() < 0)
+            throw new IllegalArgumentException("delta-stepping needs non-negative edge weights");
+        if (_delta < 1)
+            throw new IllegalArgumentException("delta must be at least 1");
+        delta = _delta;
+
+        state = new AtomicLongArray(V + 1);
+        for (int v = 0; v <= V; ++v)
+            state.set(v, pack(Integer.MAX_VALUE, -1));
+        state.set(s, pack(0, -1));
+
+        // pending distances lie within maxWeight of the current bucket, so a
+        // ring of buckets that long is enough
+        int ring = g.maxWeight() / delta + 2;
+        IntList[] buckets = new IntList[ring];
+        for (int b = 0; b < ring; ++b)
+            buckets[b] = new IntList();
+        buckets[0].add(s);
+        int pending = 1;
+
+        int[] stamp = new int[V + 1]; // dedupes a frontier, stamp[v] == round when v is in it
+        int round = 0;
+        IntList settled = new IntList();
+
+        for (long i = 0; pending > 0; ++i) {
+            IntList bucket = buckets[(int) (i % ring)];
+            if (bucket.size == 0)
+                continue;
+            settled.size = 0;
+
+            // light edges, repeated while vertices fall back into bucket i
+            while (bucket.size > 0) {
+                ++round;
+                IntList frontier = new IntList();
+                for (int k = 0; k < bucket.size; ++k) {
+                    int v = bucket.a[k];
+                    if (stamp[v] != round && dist(v) / delta == i) {
+                        stamp[v] = round;
+                        frontier.add(v);
+                    }
+                }
+                pending -= bucket.size;
+                bucket.size = 0;
+                settled.addAll(frontier);
+
+                IntList improved = pool.invoke(new Relax(frontier, 0, frontier.size, true));
+                pending += spread(improved, buckets, ring);
+            }
+
+            // heavy edges of everything settled in bucket i, each vertex once
+            ++round;
+            IntList done = new IntList();
+            for (int k = 0; k < settled.size; ++k) {
+                int v = settled.a[k];
+                if (stamp[v] != round) {
+                    stamp[v] = round;
+                    done.add(v);
+                }
+            }
+            IntList improved = pool.invoke(new Relax(done, 0, done.size, false));
+            pending += spread(improved, buckets, ring);
+        }
+
+        for (int v = 0; v <= V; ++v) {
+            long x = state.get(v);
+            dist[v] = (int) (x >>> 32);
+            parent[v] = (int) x - 1;
+        }
+        state = null;
+    }
+
+    // drop improved vertices into the buckets of their new distance
+    private int spread(IntList improved, IntList[] buckets, int ring) {
+        for (int k = 0; k < improved.size; ++k) {
+            int v = improved.a[k];
+            buckets[(dist(v) / delta) % ring].add(v);
+        }
+        return improved.size;
+    }
+
+    private int dist(int v) {
+        return (int) (state.get(v) >>> 32);
+    }
+
+    private static long pack(int dist, int parent) {
+        return ((long) dist << 32) | (parent + 1);
+    }
+
+    // relax the light or heavy edges of frontier[lo..hi), returns the vertices improved
+    @SuppressWarnings("serial")
+    private class Relax extends RecursiveTask<IntList> {
+        private final IntList frontier;
+        private final int lo, hi;
+        private final boolean light;
+
+        Relax(IntList _frontier, int _lo, int _hi, boolean _light) {
+            frontier = _frontier;
+            lo = _lo;
+            hi = _hi;
+            light = _light;
+        }
+
+        protected IntList compute() {
+            if (hi - lo > LEAF) {
+                int mid = (lo + hi) >>> 1;
+                Relax left = new Relax(frontier, lo, mid, light);
+                left.fork();
+                IntList right = new Relax(frontier, mid, hi, light).compute();
+                IntList out = left.join();
+                out.addAll(right);
+                return out;
+            }
+
+            IntList out = new IntList();
+            EdgeCursor t = adj.cursor();
+            for (int k = lo; k < hi; ++k) {
+                int v = frontier.a[k];
+                int d = dist(v);
+                t.start(v);
+                while (t.next()) {
+                    if ((t.wgt <= delta) != light)
+                        continue;
+                    long candidate = pack(d + t.wgt, v);
+                    int u = t.vert;
+
+                    // compare and set until the candidate wins or loses
+                    long old = state.get(u);
+                    while (candidate < old) {
+                        if (state.compareAndSet(u, old, candidate)) {
+                            if ((int) (candidate >>> 32) < (int) (old >>> 32))
+                                out.add(u);
+                            break;
+                        }
+                        old = state.get(u);
+                    }
+                }
+            }
+            return out;
+        }
+    }
+}
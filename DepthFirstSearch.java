@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+// iterative depth first search with an explicit stack, so deep graphs cannot
+// overflow the thread stack. every stack slot keeps its own edge cursor and
+// the cursors are pooled across runs, a traversal allocates nothing once the
+// stack has grown to the graph's depth. visited marks are epoch stamped, each
+// run starts from a clean slate without clearing an array.
+// vertices are discovered in the same order as a recursive search
+class DepthFirstSearch {
+    // callbacks fired as the search walks the graph, all optional
+    interface Visitor {
+        // v is reached for the first time over a tree edge from parent, -1 for a root
+        default void discover(int v, int parent) {
+        }
+
+        // v's edge to u leads to a vertex that was already discovered
+        default void nonTreeEdge(int v, int u) {
+        }
+
+        // all of v's edges are done, the search backs up to parent
+        default void finish(int v, int parent) {
+        }
+    }
+
+    private final Adjacency adj;
+    private final int[] stamp;  // stamp[v] == epoch once v is discovered
+    private int epoch;
+
+    private int[] stack = new int[16];
+    private EdgeCursor[] cursors = new EdgeCursor[16];
+    private int depth;
+
+    public DepthFirstSearch(Graph g) {
+        adj = g.adjacency();
+        stamp = new int[g.vertices() + 1];
+    }
+
+    // forget every vertex discovered so far
+    public void begin() {
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+    }
+
+    // a new traversal from s
+    public void run(int s, Visitor visitor) {
+        begin();
+        visit(s, visitor);
+    }
+
+    // continue the current traversal from s, nothing happens if s was already discovered
+    public void visit(int s, Visitor visitor) {
+        if (stamp[s] == epoch)
+            return;
+        stamp[s] = epoch;
+        visitor.discover(s, -1);
+        push(s);
+
+        while (depth > 0) {
+            int v = stack[depth - 1];
+            EdgeCursor t = cursors[depth - 1];
+            if (t.next()) {
+                int u = t.vert;
+                if (stamp[u] != epoch) {
+                    stamp[u] = epoch;
+                    visitor.discover(u, v);
+                    push(u);
+                } else {
+                    visitor.nonTreeEdge(v, u);
+                }
+            } else {
+                --depth;
+                visitor.finish(v, depth > 0 ? stack[depth - 1] : -1);
+            }
+        }
+    }
+
+    public boolean discovered(int v) {
+        return stamp[v] == epoch;
+    }
+
+    private void push(int v) {
+        if (depth == stack.length) {
+            stack = Arrays.copyOf(stack, depth * 2);
+            cursors = Arrays.copyOf(cursors, depth * 2);
+        }
+        if (cursors[depth] == null)
+            cursors[depth] = adj.cursor();
+        stack[depth] = v;
+        cursors[depth++].start(v);
+    }
+}
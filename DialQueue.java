@@ -0,0 +1,82 @@
+import java.util.Arrays;
+
+// Dial's bucket queue for Dijkstra with small integer weights. every key in
+// the queue lies in [cur, cur + C], so C + 1 circular buckets hold each key
+// in a bucket of its own and remove only ever scans forward
+class DialQueue implements VertexQueue {
+    public static final int MAX_WIDTH = 1 << 16; // largest weight worth a bucket array
+
+    private final int[] dist;    // dist[v] = priority of v
+    private final int[] head;    // first vertex in each bucket, 0 if empty
+    private final int[] next, prev;
+    private final int[] bucket;  // bucket holding v, -1 when v is not queued
+    private final int B;         // number of buckets
+    private long cur;            // smallest key that can still be in the queue, -1 before the first insert
+    private int N;               // queue size
+
+    public DialQueue(int maxSize, int[] _dist, int maxWeight) {
+        dist = _dist;
+        B = Math.max(maxWeight, 1) + 1;
+        head = new int[B];
+        next = new int[maxSize + 1];
+        prev = new int[maxSize + 1];
+        bucket = new int[maxSize + 1];
+        Arrays.fill(bucket, -1);
+        N = 0;
+        cur = -1;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    public boolean contains(int v) {
+        return bucket[v] >= 0;
+    }
+
+    public void insert(int v) {
+        if (cur < 0)
+            cur = dist[v]; // the first key sets where the scan starts
+        link(v);
+        ++N;
+    }
+
+    public void decreaseKey(int v) {
+        unlink(v);
+        link(v);
+    }
+
+    public int remove() {
+        int b = (int) (cur % B);
+        while (head[b] == 0) {
+            ++cur;
+            if (++b == B)
+                b = 0;
+        }
+        int v = head[b];
+        unlink(v);
+        --N;
+        return v;
+    }
+
+    private void link(int v) {
+        int b = dist[v] % B;
+        bucket[v] = b;
+        prev[v] = 0;
+        next[v] = head[b];
+        if (head[b] != 0)
+            prev[head[b]] = v;
+        head[b] = v;
+    }
+
+    private void unlink(int v) {
+        int b = bucket[v];
+        if (prev[v] != 0)
+            next[prev[v]] = next[v];
+        else
+            head[b] = next[v];
+        if (next[v] != 0)
+            prev[next[v]] = prev[v];
+        bucket[v] = -1;
+    }
+}
@@ -0,0 +1,485 @@
+import java.util.Arrays;
+
+// minimum spanning forest kept up to date under edge insertions, deletions
+// and weight changes. the forest lives in a link-cut tree where every edge is
+// a node of its own between its two ends, so a path query returns the
+// heaviest edge on the tree path between two vertices.
+//
+//   insert u - v: if u and v are in different trees the edge links them,
+//     otherwise it replaces the heaviest edge on the u .. v path when lighter.
+//     O(log n) amortised.
+//   delete: the edges split in two. the base edges sit in a DecrementalMSF
+//     (Holm, de Lichtenberg and Thorup), which finds the replacement among
+//     them in O(log^2 n) amortised. the edges inserted or reweighted since
+//     the base was built form a buffer. the forest is the minimum spanning
+//     forest of the base forest plus the buffer, and at most buffer size of
+//     those edges are out of the forest. so a replacement is the lightest of
+//     those spare edges that crosses the cut, or the edge the base put in.
+//     once the buffer passes sqrt(m) the base is rebuilt from the forest and
+//     all live edges. a rebuild puts every level back to 0, so the base pays
+//     its O(m log^2 n) of lifting again, and an update costs O(sqrt(m)
+//     log^2 n) amortised, against O(m) for a split near the middle of a big
+//     tree when the smaller half is searched directly.
+//   weight changes: a lighter tree edge only updates its key, and so does a
+//     heavier buffered edge out of the forest. anything else leaves the
+//     structures and comes back as a buffered edge with its new weight.
+//
+// edges compare by (weight, id), so the forest is the one Kruskal builds when
+// it breaks ties by id and verify() can compare it edge for edge
+class DynamicMST {
+    private final int V;
+
+    // edge id -> ends, weight, state
+    private int[] from, to, wgt;
+    private boolean[] live, inTree;
+    private int numEdges;
+    private int treeEdges;
+    private long totalWeight;
+
+    // base edges live in a decremental forest. extra[] lists the buffered
+    // edges, spare[] the base forest and buffered edges outside the forest,
+    // extraPos and sparePos give their slots, -1 when not listed
+    private DecrementalMSF base;
+    private boolean[] inBase;
+    private int[] extra, extraPos, spare, sparePos;
+    private int extraCount, spareCount, liveEdges;
+
+    // link-cut tree over nodes 1..V (vertices) and V + 1 + id (edges), 0 is null
+    private int[] left, right, up, best;
+    private boolean[] flip;
+    private long[] key;
+
+    public DynamicMST(int _V) {
+        V = _V;
+        from = new int[16];
+        to = new int[16];
+        wgt = new int[16];
+        live = new boolean[16];
+        inTree = new boolean[16];
+        inBase = new boolean[16];
+        extra = new int[16];
+        extraPos = new int[16];
+        spare = new int[16];
+        sparePos = new int[16];
+        base = new DecrementalMSF(V);
+        int nodes = V + 1 + 16;
+        left = new int[nodes];
+        right = new int[nodes];
+        up = new int[nodes];
+        best = new int[nodes];
+        flip = new boolean[nodes];
+        key = new long[nodes];
+        for (int x = 0; x <= V; ++x) {
+            key[x] = Long.MIN_VALUE;
+            best[x] = x;
+        }
+    }
+
+    // starts from an existing minimum spanning forest: the edges with ids in
+    // chosen are linked directly, every other edge goes in as a non-tree edge.
+    // edge e of the arrays gets id e
+    public DynamicMST(int _V, int _numEdges, int[] _from, int[] _to, int[] _wgt, int[] chosen) {
+        this(_V);
+        boolean[] tree = new boolean[_numEdges];
+        for (int e : chosen)
+            tree[e] = true;
+        for (int e = 0; e < _numEdges; ++e) {
+            int id = newEdge(_from[e], _to[e], _wgt[e]);
+            if (tree[id])
+                attach(id);
+            base.add(id, from[id], to[id], edgeKey(id), tree[id]);
+            inBase[id] = true;
+        }
+    }
+
+    // adds an edge and returns its id
+    public int insertEdge(int u, int v, int weight) {
+        int id = newEdge(u, v, weight);
+        buffer(id);
+        place(id);
+        rebuildIfFull();
+        return id;
+    }
+
+    public void deleteEdge(int id) {
+        if (!live[id])
+            throw new IllegalArgumentException("edge " + id + " is not in the graph");
+        live[id] = false;
+        --liveEdges;
+        remove(id);
+    }
+
+    public void updateWeight(int id, int weight) {
+        if (!live[id])
+            throw new IllegalArgumentException("edge " + id + " is not in the graph");
+        int old = wgt[id];
+        if (inTree[id] && weight <= old) {
+            // a lighter tree edge stays in the tree, the base never looks at tree keys
+            setKey(id, weight);
+            totalWeight += weight - old;
+        } else if (!inTree[id] && !inBase[id] && weight >= old) {
+            // a heavier buffered edge outside the forest stays out
+            wgt[id] = weight;
+            key[node(id)] = edgeKey(id);
+        } else {
+            remove(id);
+            wgt[id] = weight;
+            key[node(id)] = edgeKey(id);
+            buffer(id);
+            place(id);
+            rebuildIfFull();
+        }
+    }
+
+    public long totalWeight() {
+        return totalWeight;
+    }
+
+    // no of edges in the forest
+    public int treeEdges() {
+        return treeEdges;
+    }
+
+    public boolean inTree(int id) {
+        return live[id] && inTree[id];
+    }
+
+    public boolean connected(int u, int v) {
+        return findRoot(u) == findRoot(v);
+    }
+
+    // the forest edges in id order
+    public Edge[] tree() {
+        Edge[] out = new Edge[treeEdges];
+        int n = 0;
+        for (int id = 0; id < numEdges; ++id)
+            if (live[id] && inTree[id])
+                out[n++] = new Edge(from[id], to[id], wgt[id]);
+        return out;
+    }
+
+    // recompute the forest with Kruskal over the live edges and compare
+    public boolean verify() {
+        int m = 0;
+        int[] ids = new int[numEdges];
+        for (int id = 0; id < numEdges; ++id)
+            if (live[id])
+                ids[m++] = id;
+        int[] f = new int[m], t = new int[m], w = new int[m];
+        for (int e = 0; e < m; ++e) {
+            f[e] = from[ids[e]];
+            t[e] = to[ids[e]];
+            w[e] = wgt[ids[e]];
+        }
+
+        // FilterKruskal breaks ties by array index, which follows the ids
+        int[] chosen = new FilterKruskal(V, m, f, t, w).run();
+        long sum = 0;
+        int matched = 0;
+        for (int e : chosen) {
+            sum += w[e];
+            if (inTree[ids[e]])
+                ++matched;
+        }
+        return sum == totalWeight && chosen.length == treeEdges && matched == treeEdges;
+    }
+
+    // ---- forest maintenance ----
+
+    private int newEdge(int u, int v, int weight) {
+        if (numEdges == from.length) {
+            int n = from.length * 2;
+            from = Arrays.copyOf(from, n);
+            to = Arrays.copyOf(to, n);
+            wgt = Arrays.copyOf(wgt, n);
+            live = Arrays.copyOf(live, n);
+            inTree = Arrays.copyOf(inTree, n);
+            inBase = Arrays.copyOf(inBase, n);
+            extraPos = Arrays.copyOf(extraPos, n);
+            sparePos = Arrays.copyOf(sparePos, n);
+            left = Arrays.copyOf(left, V + 1 + n);
+            right = Arrays.copyOf(right, V + 1 + n);
+            up = Arrays.copyOf(up, V + 1 + n);
+            best = Arrays.copyOf(best, V + 1 + n);
+            flip = Arrays.copyOf(flip, V + 1 + n);
+            key = Arrays.copyOf(key, V + 1 + n);
+        }
+        int id = numEdges++;
+        from[id] = u;
+        to[id] = v;
+        wgt[id] = weight;
+        live[id] = true;
+        extraPos[id] = -1;
+        sparePos[id] = -1;
+        ++liveEdges;
+        int x = node(id);
+        key[x] = edgeKey(id);
+        best[x] = x;
+        return id;
+    }
+
+    // takes a live edge out of the base or the buffer and out of the forest,
+    // repairing the forest as if the edge were gone
+    private void remove(int id) {
+        int replacement = -1;
+        if (inBase[id]) {
+            replacement = base.delete(id);
+            inBase[id] = false;
+        } else {
+            unbuffer(id);
+        }
+        if (sparePos[id] >= 0) {
+            unspare(id);
+        } else if (inTree[id]) {
+            detach(id);
+            reconnect(edgeKey(id));
+        }
+        // the base swapped in an edge it had kept out, it competes like a new one
+        if (replacement != -1)
+            place(replacement);
+    }
+
+    // an edge of the base forest or the buffer that is not in the forest yet
+    // joins it if it links two trees or is lighter than the heaviest edge on
+    // the cycle it closes, whatever loses stays spare
+    private void place(int id) {
+        int u = from[id], v = to[id];
+        if (u == v) {
+            addSpare(id);
+        } else if (!connected(u, v)) {
+            attach(id);
+        } else {
+            int heaviest = pathMax(u, v) - V - 1;
+            if (edgeKey(id) < edgeKey(heaviest)) {
+                detach(heaviest);
+                addSpare(heaviest);
+                attach(id);
+            } else {
+                addSpare(id);
+            }
+        }
+    }
+
+    // after a forest edge with key cutKey went, join its two sides with the
+    // lightest spare edge across. before the cut every spare edge had both
+    // ends in one tree, so the ones no longer connected are exactly those
+    // across the cut. a spare edge is the heaviest on its cycle, so only one
+    // heavier than the edge that went can have had it on its path
+    private void reconnect(long cutKey) {
+        int bestEdge = -1;
+        for (int i = 0; i < spareCount; ++i) {
+            int e = spare[i];
+            long k = edgeKey(e);
+            if (k > cutKey && (bestEdge == -1 || k < edgeKey(bestEdge)) && !connected(from[e], to[e]))
+                bestEdge = e;
+        }
+        // with no edge across the cut the tree stays split in two
+        if (bestEdge != -1) {
+            unspare(bestEdge);
+            attach(bestEdge);
+        }
+    }
+
+    // once the buffer outgrows sqrt(m) the forest becomes the new base
+    private void rebuildIfFull() {
+        if (extraCount <= Math.max(64, (int) Math.sqrt(liveEdges)))
+            return;
+        base = new DecrementalMSF(V);
+        for (int id = 0; id < numEdges; ++id) {
+            if (live[id]) {
+                base.add(id, from[id], to[id], edgeKey(id), inTree[id]);
+                inBase[id] = true;
+                extraPos[id] = -1;
+                sparePos[id] = -1;
+            }
+        }
+        extraCount = 0;
+        spareCount = 0;
+    }
+
+    private void buffer(int id) {
+        if (extraCount == extra.length)
+            extra = Arrays.copyOf(extra, extraCount * 2);
+        extraPos[id] = extraCount;
+        extra[extraCount++] = id;
+    }
+
+    private void unbuffer(int id) {
+        int k = extraPos[id], last = extra[--extraCount];
+        extra[k] = last;
+        extraPos[last] = k;
+        extraPos[id] = -1;
+    }
+
+    private void addSpare(int id) {
+        if (spareCount == spare.length)
+            spare = Arrays.copyOf(spare, spareCount * 2);
+        sparePos[id] = spareCount;
+        spare[spareCount++] = id;
+    }
+
+    private void unspare(int id) {
+        int k = sparePos[id], last = spare[--spareCount];
+        spare[k] = last;
+        sparePos[last] = k;
+        sparePos[id] = -1;
+    }
+
+    private void attach(int id) {
+        link(from[id], node(id));
+        link(node(id), to[id]);
+        inTree[id] = true;
+        ++treeEdges;
+        totalWeight += wgt[id];
+    }
+
+    private void detach(int id) {
+        cut(from[id], node(id));
+        cut(node(id), to[id]);
+        inTree[id] = false;
+        --treeEdges;
+        totalWeight -= wgt[id];
+    }
+
+    private void setKey(int id, int weight) {
+        int x = node(id);
+        access(x);
+        wgt[id] = weight;
+        key[x] = edgeKey(id);
+        pull(x);
+    }
+
+    private int node(int id) {
+        return V + 1 + id;
+    }
+
+    // weight in the high half, id in the low half
+    private long edgeKey(int id) {
+        return ((long) wgt[id] << 32) | id;
+    }
+
+    // ---- link-cut tree ----
+
+    private boolean isRoot(int x) {
+        int p = up[x];
+        return p == 0 || (left[p] != x && right[p] != x);
+    }
+
+    private void pull(int x) {
+        int b = x;
+        if (left[x] != 0 && key[best[left[x]]] > key[b])
+            b = best[left[x]];
+        if (right[x] != 0 && key[best[right[x]]] > key[b])
+            b = best[right[x]];
+        best[x] = b;
+    }
+
+    private void push(int x) {
+        if (flip[x]) {
+            int t = left[x];
+            left[x] = right[x];
+            right[x] = t;
+            if (left[x] != 0)
+                flip[left[x]] ^= true;
+            if (right[x] != 0)
+                flip[right[x]] ^= true;
+            flip[x] = false;
+        }
+    }
+
+    private void rotate(int x) {
+        int y = up[x], z = up[y];
+        if (!isRoot(y)) {
+            if (left[z] == y)
+                left[z] = x;
+            else
+                right[z] = x;
+        }
+        up[x] = z;
+        if (left[y] == x) {
+            left[y] = right[x];
+            if (right[x] != 0)
+                up[right[x]] = y;
+            right[x] = y;
+        } else {
+            right[y] = left[x];
+            if (left[x] != 0)
+                up[left[x]] = y;
+            left[x] = y;
+        }
+        up[y] = x;
+        pull(y);
+        pull(x);
+    }
+
+    private int[] pending = new int[64];
+
+    private void splay(int x) {
+        // pushes run from the top of x's splay tree down to x
+        int n = 0;
+        for (int y = x;; y = up[y]) {
+            if (n == pending.length)
+                pending = Arrays.copyOf(pending, n * 2);
+            pending[n++] = y;
+            if (isRoot(y))
+                break;
+        }
+        while (n > 0)
+            push(pending[--n]);
+
+        while (!isRoot(x)) {
+            int y = up[x];
+            if (!isRoot(y)) {
+                int z = up[y];
+                rotate((left[y] == x) == (left[z] == y) ? y : x);
+            }
+            rotate(x);
+        }
+    }
+
+    private void access(int x) {
+        for (int last = 0, y = x; y != 0; last = y, y = up[y]) {
+            splay(y);
+            right[y] = last;
+            pull(y);
+        }
+        splay(x);
+    }
+
+    private void makeRoot(int x) {
+        access(x);
+        flip[x] ^= true;
+    }
+
+    private int findRoot(int x) {
+        access(x);
+        push(x);
+        while (left[x] != 0) {
+            x = left[x];
+            push(x);
+        }
+        splay(x);
+        return x;
+    }
+
+    private void link(int x, int y) {
+        makeRoot(x);
+        up[x] = y;
+    }
+
+    private void cut(int x, int y) {
+        makeRoot(x);
+        access(y);
+        // x is now y's left child with nothing to its right
+        left[y] = 0;
+        up[x] = 0;
+        pull(y);
+    }
+
+    // node of the heaviest edge on the tree path u .. v
+    private int pathMax(int u, int v) {
+        makeRoot(u);
+        access(v);
+        return best[v];
+    }
+}
@@ -0,0 +1,315 @@
+import java.util.Arrays;
+
+// shortest path tree from one source kept alive across edge weight changes.
+// weight changes go through setWeight() and are queued, repair() then fixes
+// the tree for the whole batch in the style of Ramalingam and Reps:
+//
+//   1. every vertex below a tree edge that got heavier loses its distance.
+//      each of them restarts from its best neighbour outside that set.
+//   2. the ends of every edge that got lighter are relaxed across it.
+//   3. a Dijkstra run from the vertices of 1 and 2 spreads the new distances.
+//   4. the vertices whose distance changed, their neighbours and the changed
+//      edges' ends pick their parent again by the tie rule of shortestPaths.
+//
+// the work is proportional to the edges around the vertices that changed,
+// not to the graph. the result matches Graph.shortestPaths exactly, dist and
+// parent alike, which needs positive weights: with zero weight edges the
+// tie rule depends on the order Dijkstra settles vertices in. weights changed
+// on the graph behind this tree's back are caught by Graph.version() and
+// answered with a full recompute
+class DynamicSPT {
+    private final Graph g;
+    private final EdgeCursor t;
+    private final int V;
+    private final int s;
+    private final int[] dist, parent;
+    private final int[] firstChild, nextSibling, prevSibling; // the tree as child lists
+    private long version;   // graph version the tree is valid for, once the queue is repaired
+    private boolean verifying;
+
+    // queued changes: edge u - v went from old to w
+    private final IntList changes = new IntList();
+
+    // scratch, reset lazily by epoch
+    private final int[] affected, fixed, hPos, heap;
+    private int N, epoch;
+    private final IntList work = new IntList();
+    private final IntList toFix = new IntList();
+
+    public int lastChanged; // vertices settled again by the last repair
+
+    public DynamicSPT(Graph _g, int _s) {
+        g = _g;
+        s = _s;
+        V = g.vertices();
+        t = g.adjacency().cursor();
+        dist = new int[V + 1];
+        parent = new int[V + 1];
+        firstChild = new int[V + 1];
+        nextSibling = new int[V + 1];
+        prevSibling = new int[V + 1];
+        affected = new int[V + 1];
+        fixed = new int[V + 1];
+        hPos = new int[V + 1];
+        heap = new int[V + 1];
+        recompute();
+    }
+
+    // compare every repair against a full recompute and throw on a mismatch
+    public void setVerifying(boolean on) {
+        verifying = on;
+    }
+
+    public int dist(int v) {
+        return dist[v];
+    }
+
+    public int parent(int v) {
+        return parent[v];
+    }
+
+    // change a weight on the graph and queue it for the next repair. a graph
+    // with read-only weights throws IllegalStateException before anything changes
+    public void setWeight(int u, int v, int w) {
+        if (w <= 0)
+            throw new IllegalArgumentException("incremental repair needs positive weights");
+        boolean current = g.version() == version;
+        int old = g.setWeight(u, v, w);
+        if (current) {
+            version = g.version();
+            changes.add(u);
+            changes.add(v);
+            changes.add(old);
+            changes.add(w);
+        }
+    }
+
+    // setWeight and repair in one go
+    public void update(int u, int v, int w) {
+        setWeight(u, v, w);
+        repair();
+    }
+
+    // bring the tree up to date with the queued changes
+    public void repair() {
+        if (g.version() != version) {
+            recompute();
+            return;
+        }
+        if (changes.size == 0)
+            return;
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(affected, 0);
+            Arrays.fill(fixed, 0);
+            epoch = 1;
+        }
+        N = 0;
+        lastChanged = 0;
+        toFix.size = 0;
+
+        // 1. subtrees hanging below heavier tree edges
+        work.size = 0;
+        for (int i = 0; i < changes.size; i += 4) {
+            int u = changes.a[i], v = changes.a[i + 1], old = changes.a[i + 2], w = changes.a[i + 3];
+            if (w <= old)
+                continue;
+            int child = parent[v] == u ? v : parent[u] == v ? u : 0;
+            if (child != 0 && affected[child] != epoch)
+                collectSubtree(child);
+        }
+        int cut = work.size;
+        for (int k = 0; k < cut; ++k) {
+            int x = work.a[k];
+            setParent(x, -1);
+            dist[x] = Integer.MAX_VALUE;
+            needsParent(x);
+        }
+        for (int k = 0; k < cut; ++k) {
+            int x = work.a[k];
+            int d = Integer.MAX_VALUE;
+            t.start(x);
+            while (t.next()) {
+                needsParent(t.vert);
+                if (affected[t.vert] != epoch && dist[t.vert] != Integer.MAX_VALUE)
+                    d = Math.min(d, dist[t.vert] + t.wgt);
+            }
+            if (d != Integer.MAX_VALUE) {
+                dist[x] = d;
+                push(x);
+            }
+        }
+
+        // 2. lighter edges, relaxed at their current weight since an edge may
+        // have changed more than once in the batch
+        for (int i = 0; i < changes.size; i += 4) {
+            int u = changes.a[i], v = changes.a[i + 1];
+            needsParent(u);
+            needsParent(v);
+            t.start(u);
+            while (t.next()) {
+                if (t.vert == v) {
+                    relax(u, v, t.wgt);
+                    relax(v, u, t.wgt);
+                }
+            }
+        }
+        changes.size = 0;
+
+        // 3. spread the new distances
+        while (N > 0) {
+            int x = removeMin();
+            ++lastChanged;
+            needsParent(x);
+            t.start(x);
+            while (t.next()) {
+                needsParent(t.vert);
+                relax(x, t.vert, t.wgt);
+            }
+        }
+
+        // 4. parents by the tie rule, the lowest numbered vertex on a shortest path
+        for (int k = 0; k < toFix.size; ++k) {
+            int x = toFix.a[k];
+            int p = -1;
+            if (x != s && dist[x] != Integer.MAX_VALUE) {
+                t.start(x);
+                while (t.next()) {
+                    int y = t.vert;
+                    if (y != x && dist[y] != Integer.MAX_VALUE && dist[y] + t.wgt == dist[x] && (p == -1 || y < p))
+                        p = y;
+                }
+            }
+            setParent(x, p);
+        }
+
+        if (verifying && !verify())
+            throw new IllegalStateException("repaired tree from " + s + " differs from a full recompute");
+    }
+
+    // recompute the whole tree and compare it with this one
+    public boolean verify() {
+        int[] d = new int[V + 1], p = new int[V + 1];
+        g.shortestPaths(s, d, p, VertexQueue.Kind.BINARY);
+        for (int v = 1; v <= V; ++v) {
+            int want = d[v] == Integer.MAX_VALUE ? -1 : p[v];
+            if (d[v] != dist[v] || want != parent[v])
+                return false;
+        }
+        return true;
+    }
+
+    // throw the tree away and run Dijkstra again
+    public void recompute() {
+        if (g.minWeight() <= 0)
+            throw new IllegalArgumentException("incremental repair needs positive weights");
+        g.shortestPaths(s, dist, parent, VertexQueue.Kind.BINARY);
+        changes.size = 0;
+        version = g.version();
+        Arrays.fill(firstChild, 0);
+        for (int v = 1; v <= V; ++v) {
+            if (dist[v] == Integer.MAX_VALUE)
+                parent[v] = -1;
+            int p = parent[v];
+            if (p > 0) {
+                prevSibling[v] = 0;
+                nextSibling[v] = firstChild[p];
+                if (firstChild[p] != 0)
+                    prevSibling[firstChild[p]] = v;
+                firstChild[p] = v;
+            }
+        }
+        lastChanged = V;
+    }
+
+    private void relax(int u, int v, int w) {
+        if (dist[u] != Integer.MAX_VALUE && dist[u] + w < dist[v]) {
+            dist[v] = dist[u] + w;
+            push(v);
+        }
+    }
+
+    private void needsParent(int x) {
+        if (fixed[x] != epoch) {
+            fixed[x] = epoch;
+            toFix.add(x);
+        }
+    }
+
+    // mark the subtree under r and append it to work
+    private void collectSubtree(int r) {
+        int from = work.size;
+        affected[r] = epoch;
+        work.add(r);
+        for (int k = from; k < work.size; ++k) {
+            for (int c = firstChild[work.a[k]]; c != 0; c = nextSibling[c]) {
+                if (affected[c] != epoch) {
+                    affected[c] = epoch;
+                    work.add(c);
+                }
+            }
+        }
+    }
+
+    // move x under p in the child lists, -1 detaches it
+    private void setParent(int x, int p) {
+        int old = parent[x];
+        if (old == p)
+            return;
+        if (old > 0) {
+            if (prevSibling[x] != 0)
+                nextSibling[prevSibling[x]] = nextSibling[x];
+            else
+                firstChild[old] = nextSibling[x];
+            if (nextSibling[x] != 0)
+                prevSibling[nextSibling[x]] = prevSibling[x];
+        }
+        parent[x] = p;
+        prevSibling[x] = 0;
+        nextSibling[x] = 0;
+        if (p > 0) {
+            nextSibling[x] = firstChild[p];
+            if (firstChild[p] != 0)
+                prevSibling[firstChild[p]] = x;
+            firstChild[p] = x;
+        }
+    }
+
+    // binary heap on dist, hPos[v] == 0 when v is not in it
+    private void push(int v) {
+        int k = hPos[v];
+        if (k == 0) {
+            k = ++N;
+            heap[k] = v;
+        }
+        while (k > 1 && dist[v] < dist[heap[k / 2]]) {
+            heap[k] = heap[k / 2];
+            hPos[heap[k]] = k;
+            k = k / 2;
+        }
+        heap[k] = v;
+        hPos[v] = k;
+    }
+
+    private int removeMin() {
+        int v = heap[1];
+        hPos[v] = 0;
+        int last = heap[N--];
+        if (N == 0)
+            return v;
+
+        int k = 1, j;
+        while (2 * k <= N) {
+            j = 2 * k;
+            if (j < N && dist[heap[j + 1]] < dist[heap[j]])
+                j++;
+            if (dist[last] <= dist[heap[j]])
+                break;
+            heap[k] = heap[j];
+            hPos[heap[k]] = k;
+            k = j;
+        }
+        heap[k] = last;
+        hPos[last] = k;
+        return v;
+    }
+}
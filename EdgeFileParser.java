@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// reads an edge file ("V E" on the first line, then one "u v wgt" line per edge)
+// by memory-mapping it, cutting the body into byte ranges on newline boundaries
+// and parsing the integers straight from the bytes on several threads
+class EdgeFileParser {
+    private static final long MAX_CHUNK = 1 << 30; // a single mapping must stay under 2GB
+
+    public int V, E;       // no of vertices and edges from the header
+    public int[] from;     // from[e], to[e], wgt[e] describe edge e, 0 <= e < E
+    public int[] to;
+    public int[] wgt;
+    public long bytes;     // size of the file
+    public long nanos;     // time taken to map and parse it
+
+    private EdgeFileParser() {
+    }
+
+    public static EdgeFileParser parse(String graphFile) throws IOException {
+        return parse(graphFile, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static EdgeFileParser parse(String graphFile, int threads) throws IOException {
+        EdgeFileParser p = new EdgeFileParser();
+        long begin = System.nanoTime();
+
+        try (FileChannel ch = FileChannel.open(Paths.get(graphFile), StandardOpenOption.READ)) {
+            p.bytes = ch.size();
+
+            // the header sits in the first line, V and E are its first two numbers
+            MappedByteBuffer head = ch.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(p.bytes, 4096));
+            int[] cursor = new int[1];
+            p.V = (int) nextInt(head, cursor, head.limit());
+            p.E = (int) nextInt(head, cursor, head.limit());
+            long body = lineEnd(ch, cursor[0]);
+
+            p.from = new int[p.E];
+            p.to = new int[p.E];
+            p.wgt = new int[p.E];
+
+            // cut the body into ranges that start right after a newline
+            int pieces = threads * 4;
+            long step = Math.max(1, Math.min(MAX_CHUNK, (p.bytes - body + pieces - 1) / pieces));
+            List<long[]> ranges = new ArrayList<>();
+            long start = body;
+            while (start < p.bytes) {
+                long end = start + step >= p.bytes ? p.bytes : lineEnd(ch, start + step);
+                ranges.add(new long[] { start, end });
+                start = end;
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+            try {
+                // phase one counts the edges in every range
+                List<Callable<Integer>> counting = new ArrayList<>();
+                MappedByteBuffer[] maps = new MappedByteBuffer[ranges.size()];
+                for (int r = 0; r < maps.length; ++r) {
+                    long[] range = ranges.get(r);
+                    maps[r] = ch.map(FileChannel.MapMode.READ_ONLY, range[0], range[1] - range[0]);
+                    MappedByteBuffer buf = maps[r];
+                    counting.add(() -> countNumbers(buf) / 3);
+                }
+                int[] first = new int[maps.length + 1];
+                int r = 0;
+                for (Future<Integer> f : pool.invokeAll(counting)) {
+                    first[r + 1] = first[r] + f.get();
+                    ++r;
+                }
+                if (first[maps.length] < p.E)
+                    throw new IOException(graphFile + ": header promises " + p.E + " edges, found " + first[maps.length]);
+
+                // phase two parses every range into its own slice of the arrays
+                List<Callable<Void>> parsing = new ArrayList<>();
+                for (r = 0; r < maps.length; ++r) {
+                    MappedByteBuffer buf = maps[r];
+                    int e0 = first[r], e1 = first[r + 1], range = r;
+                    parsing.add(() -> {
+                        p.fill(buf, e0, e1, range);
+                        return null;
+                    });
+                }
+                for (Future<Void> f : pool.invokeAll(parsing))
+                    f.get();
+            } catch (InterruptedException ex) {
+                throw new IOException("parsing " + graphFile + " failed", ex);
+            } catch (ExecutionException ex) {
+                throw new IOException("parsing " + graphFile + " failed", ex.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        p.nanos = System.nanoTime() - begin;
+        return p;
+    }
+
+    // parse the edges of one range into slots e .. end - 1 and never past
+    // them, the next slice belongs to another thread. edges beyond the
+    // header's E are ignored, any other disagreement with the count is an error
+    private void fill(MappedByteBuffer buf, int e, int end, int range) throws IOException {
+        int[] cursor = new int[1];
+        int limit = buf.limit(), stop = Math.min(end, E);
+        while (e < stop && skipBlank(buf, cursor, limit)) {
+            from[e] = (int) nextInt(buf, cursor, limit);
+            to[e] = (int) nextInt(buf, cursor, limit);
+            wgt[e] = (int) nextInt(buf, cursor, limit);
+            ++e;
+        }
+        if (e < stop || (stop < E && skipBlank(buf, cursor, limit)))
+            throw new IOException("range " + range + " holds a malformed line, its edge count does not match the parse");
+    }
+
+    // number of integers in a range, every edge line holds three
+    private static int countNumbers(MappedByteBuffer buf) {
+        int n = 0, limit = buf.limit();
+        boolean inNumber = false;
+        for (int i = 0; i < limit; ++i) {
+            byte b = buf.get(i);
+            boolean digit = b >= '0' && b <= '9';
+            if (digit && !inNumber)
+                ++n;
+            inNumber = digit;
+        }
+        return n;
+    }
+
+    // move the cursor to the next number, false if the range has no more
+    private static boolean skipBlank(MappedByteBuffer buf, int[] cursor, int limit) {
+        int i = cursor[0];
+        while (i < limit) {
+            byte b = buf.get(i);
+            if ((b >= '0' && b <= '9') || b == '-')
+                break;
+            ++i;
+        }
+        cursor[0] = i;
+        return i < limit;
+    }
+
+    // read the next integer at or after the cursor, leaving the cursor just past it
+    private static long nextInt(MappedByteBuffer buf, int[] cursor, int limit) {
+        skipBlank(buf, cursor, limit);
+        int i = cursor[0];
+        boolean negative = false;
+        long n = 0;
+        if (i < limit && buf.get(i) == '-') {
+            negative = true;
+            ++i;
+        }
+        while (i < limit) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9')
+                break;
+            n = n * 10 + (b - '0');
+            ++i;
+        }
+        cursor[0] = i;
+        return negative ? -n : n;
+    }
+
+    // position just past the newline that ends the line containing pos
+    private static long lineEnd(FileChannel ch, long pos) throws IOException {
+        long size = ch.size();
+        while (pos < size) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(4096, size - pos));
+            for (int i = 0; i < buf.limit(); ++i)
+                if (buf.get(i) == '\n')
+                    return pos + i + 1;
+            pos += buf.limit();
+        }
+        return size;
+    }
+
+    public double megabytesPerSecond() {
+        return nanos == 0 ? 0 : (bytes / 1e6) / (nanos / 1e9);
+    }
+
+    // one line summary of the load
+    public String report() {
+        return String.format("Parsed %d vertices and %d edges (%.1f MB) in %.1f ms, %.1f MB/s",
+                V, E, bytes / 1e6, nanos / 1e6, megabytesPerSecond());
+    }
+}
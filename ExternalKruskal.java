@@ -0,0 +1,273 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Kruskal for edge files that do not fit in memory. the file is streamed in
+// chunks that fit the memory budget, every chunk is sorted and written to a
+// temporary run file, and the runs are merged in weight order straight into a
+// union-find. edges are ordered by weight and then by their line in the file,
+// the same order FilterKruskal uses, so the tree matches findMSTFilter edge for
+// edge and its weight matches findMST. the budget covers the chunk and the merge
+// buffers, the union-find and the tree itself take O(V) on top of it
+class ExternalKruskal {
+    private static final int RECORD = 16;       // bytes per edge in memory: key, from and to
+    private static final int RUN_RECORD = 20;   // bytes per edge in a run: weight, line, from and to
+    private static final int MIN_BUFFER = 4096; // smallest read buffer per run while merging
+
+    private final String edgeFile;
+    private final long memoryBudget;
+    private final File tempDir;
+
+    public int runs;           // run files written by the last run()
+    public long bytesSpilled;  // bytes written to them
+    public long totalWeight;
+
+    public ExternalKruskal(String _edgeFile, long _memoryBudget) {
+        this(_edgeFile, _memoryBudget, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    public ExternalKruskal(String _edgeFile, long _memoryBudget, File _tempDir) {
+        if (_memoryBudget < 1 << 16)
+            throw new IllegalArgumentException("memory budget must be at least 64KB");
+        edgeFile = _edgeFile;
+        memoryBudget = _memoryBudget;
+        tempDir = _tempDir;
+    }
+
+    // the spanning forest, in the order the edges were accepted
+    public Edge[] run() throws IOException {
+        List<File> files = new ArrayList<>();
+        runs = 0;
+        bytesSpilled = 0;
+        totalWeight = 0;
+
+        try (InputStream in = new FileInputStream(edgeFile)) {
+            Numbers nums = new Numbers(in);
+            int V = (int) nums.next();
+            long E = nums.next();
+
+            // key = (weight << 32) | line within the chunk, so sorting keys sorts by weight and then line
+            int chunk = (int) Math.min(Math.max(E, 1), Math.min(memoryBudget / RECORD, Integer.MAX_VALUE - 8));
+            long[] keys = new long[chunk];
+            long[] ends = new long[chunk];  // ends[line - base] = (from << 32) | to
+            Forest forest = new Forest(V);
+
+            long line = 0;
+            while (line < E) {
+                long base = line;
+                int n = 0;
+                while (n < chunk && line < E) {
+                    int from = (int) nums.next();
+                    int to = (int) nums.next();
+                    int wgt = (int) nums.next();
+                    keys[n] = ((long) wgt << 32) | (line - base);
+                    ends[n++] = ((long) from << 32) | (to & 0xffffffffL);
+                    ++line;
+                }
+                // sequential, parallelSort would want a scratch copy of the chunk on top of the budget
+                Arrays.sort(keys, 0, n);
+
+                if (base == 0 && line == E) {
+                    // everything fit in one chunk, no need to touch the disk
+                    for (int k = 0; k < n && !forest.spanning(); ++k) {
+                        long e = ends[(int) keys[k]];
+                        forest.offer((int) (e >>> 32), (int) e, (int) (keys[k] >> 32));
+                    }
+                    return forest.edges(this);
+                }
+
+                File f = File.createTempFile("kruskal-run", ".bin", tempDir);
+                files.add(f);
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), 1 << 16))) {
+                    for (int k = 0; k < n; ++k) {
+                        // the global line goes in a long of its own, it can pass 2^32
+                        // on the inputs this is for and would spill into the weight
+                        out.writeInt((int) (keys[k] >> 32));
+                        out.writeLong(base + (int) keys[k]);
+                        out.writeLong(ends[(int) keys[k]]);
+                    }
+                }
+                bytesSpilled += (long) n * RUN_RECORD;
+            }
+            keys = null;
+            ends = null;
+            runs = files.size();
+
+            merge(files, forest);
+            return forest.edges(this);
+        } finally {
+            for (File f : files)
+                f.delete();
+        }
+    }
+
+    // k-way merge of the sorted runs through a heap of run heads
+    private void merge(List<File> files, Forest forest) throws IOException {
+        int k = files.size();
+        int buffer = (int) Math.max(MIN_BUFFER, Math.min(1 << 20, memoryBudget / k));
+        DataInputStream[] in = new DataInputStream[k];
+        int[] headWgt = new int[k];
+        long[] headLine = new long[k];
+        long[] headEnds = new long[k];
+        int[] heap = new int[k + 1];
+        int N = 0;
+
+        try {
+            for (int r = 0; r < k; ++r) {
+                in[r] = new DataInputStream(new BufferedInputStream(new FileInputStream(files.get(r)), buffer));
+                if (advance(in[r], r, headWgt, headLine, headEnds))
+                    heap[++N] = r;
+            }
+            for (int i = N / 2; i > 0; --i)
+                siftDown(heap, N, i, headWgt, headLine);
+
+            while (N > 0 && !forest.spanning()) {
+                int r = heap[1];
+                forest.offer((int) (headEnds[r] >>> 32), (int) headEnds[r], headWgt[r]);
+                if (!advance(in[r], r, headWgt, headLine, headEnds))
+                    heap[1] = heap[N--];
+                siftDown(heap, N, 1, headWgt, headLine);
+            }
+        } finally {
+            for (DataInputStream s : in)
+                if (s != null)
+                    s.close();
+        }
+    }
+
+    private static boolean advance(DataInputStream in, int r, int[] headWgt, long[] headLine, long[] headEnds) throws IOException {
+        try {
+            headWgt[r] = in.readInt();
+            headLine[r] = in.readLong();
+            headEnds[r] = in.readLong();
+            return true;
+        } catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    // run heads ordered by weight, then by line
+    private static boolean before(int a, int b, int[] wgt, long[] line) {
+        return wgt[a] != wgt[b] ? wgt[a] < wgt[b] : line[a] < line[b];
+    }
+
+    private static void siftDown(int[] heap, int N, int k, int[] wgt, long[] line) {
+        int r = heap[k], j;
+        while (2 * k <= N) {
+            j = 2 * k;
+            if (j < N && before(heap[j + 1], heap[j], wgt, line))
+                j++;
+            if (!before(heap[j], r, wgt, line))
+                break;
+            heap[k] = heap[j];
+            k = j;
+        }
+        heap[k] = r;
+    }
+
+    // union-find in a single int array, a root holds minus the size of its set,
+    // plus the accepted edges
+    private static class Forest {
+        final int V;
+        final int[] up;
+        final int[] from, to, wgt;
+        int count;
+
+        Forest(int _V) {
+            V = _V;
+            up = new int[V + 1];
+            Arrays.fill(up, -1);
+            from = new int[Math.max(0, V - 1)];
+            to = new int[Math.max(0, V - 1)];
+            wgt = new int[Math.max(0, V - 1)];
+        }
+
+        boolean spanning() {
+            return count >= V - 1;
+        }
+
+        int find(int v) {
+            while (up[v] >= 0) {
+                if (up[up[v]] >= 0)
+                    up[v] = up[up[v]];
+                v = up[v];
+            }
+            return v;
+        }
+
+        void offer(int u, int v, int w) {
+            int a = find(u), b = find(v);
+            if (a == b)
+                return;
+            if (up[a] > up[b]) { // keep a as the larger set
+                int t = a;
+                a = b;
+                b = t;
+            }
+            up[a] += up[b];
+            up[b] = a;
+            from[count] = u;
+            to[count] = v;
+            wgt[count++] = w;
+        }
+
+        Edge[] edges(ExternalKruskal k) {
+            Edge[] mst = new Edge[count];
+            for (int e = 0; e < count; ++e) {
+                mst[e] = new Edge(from[e], to[e], wgt[e]);
+                k.totalWeight += wgt[e];
+            }
+            return mst;
+        }
+    }
+
+    // reads whitespace separated integers from a stream through its own buffer
+    private static class Numbers {
+        final InputStream in;
+        final byte[] buf = new byte[1 << 16];
+        int pos, len;
+
+        Numbers(InputStream _in) {
+            in = _in;
+        }
+
+        private int read() throws IOException {
+            if (pos == len) {
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            return buf[pos++];
+        }
+
+        long next() throws IOException {
+            int b = read();
+            while (b != -1 && b != '-' && (b < '0' || b > '9'))
+                b = read();
+            if (b == -1)
+                throw new EOFException("edge file ended early");
+            boolean negative = b == '-';
+            if (negative)
+                b = read();
+            long n = 0;
+            while (b >= '0' && b <= '9') {
+                n = n * 10 + (b - '0');
+                b = read();
+            }
+            return negative ? -n : n;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+// Filter-Kruskal over primitive edge arrays. every edge is packed into one
+// long, weight in the high 32 bits and edge index in the low 32, so sorting
+// the longs sorts by weight with ties going to the lower index. large ranges
+// are split around a pivot; the light half is solved first and the heavy half
+// is then filtered of edges whose ends are already joined, so on dense graphs
+// most heavy edges are thrown away without ever being sorted
+class FilterKruskal {
+    private static final int SORT_BELOW = 1 << 14; // ranges smaller than this are just sorted
+
+    private final int numVertices;
+    private final int[] from, to, wgt;
+    private final int numEdges;
+
+    private UnionFindSets partition;
+    private int[] chosen;
+    private int count;
+
+    // edge e runs from[e] -- to[e] with weight wgt[e], 0 <= e < numEdges
+    public FilterKruskal(int _numVertices, int _numEdges, int[] _from, int[] _to, int[] _wgt) {
+        numVertices = _numVertices;
+        numEdges = _numEdges;
+        from = _from;
+        to = _to;
+        wgt = _wgt;
+    }
+
+    // indices of the spanning forest edges in the order Kruskal accepts them
+    public int[] run() {
+        long[] packed = new long[numEdges];
+        for (int e = 0; e < numEdges; ++e)
+            packed[e] = ((long) wgt[e] << 32) | e;
+
+        partition = new UnionFindSets(numVertices);
+        chosen = new int[Math.max(0, numVertices - 1)];
+        count = 0;
+        solve(packed, 0, numEdges);
+        return Arrays.copyOf(chosen, count);
+    }
+
+    private void solve(long[] a, int lo, int hi) {
+        // the heavy side is handled by the loop rather than by recursion
+        while (hi - lo > 0 && count < numVertices - 1) {
+            if (hi - lo < SORT_BELOW) {
+                scan(a, lo, hi);
+                return;
+            }
+
+            long pivot = medianOfThree(a[lo], a[(lo + hi) >>> 1], a[hi - 1]);
+            int mid = partition(a, lo, hi, pivot);
+            if (mid == hi) {
+                // every key sits at or below the pivot, splitting again would not help
+                scan(a, lo, hi);
+                return;
+            }
+
+            solve(a, lo, mid);
+            lo = mid;
+            hi = filter(a, mid, hi);
+        }
+    }
+
+    // plain Kruskal over a sorted range
+    private void scan(long[] a, int lo, int hi) {
+        Arrays.parallelSort(a, lo, hi);
+        for (int k = lo; k < hi && count < numVertices - 1; ++k) {
+            int e = (int) a[k];
+            int uSet = partition.findSet(from[e]);
+            int vSet = partition.findSet(to[e]);
+            if (uSet != vSet) {
+                chosen[count++] = e;
+                partition.union(uSet, vSet);
+            }
+        }
+    }
+
+    // move keys <= pivot to the front, returns where the larger keys start
+    private static int partition(long[] a, int lo, int hi, long pivot) {
+        int i = lo, j = hi - 1;
+        while (true) {
+            while (i <= j && a[i] <= pivot)
+                ++i;
+            while (i <= j && a[j] > pivot)
+                --j;
+            if (i >= j)
+                return i;
+            long t = a[i];
+            a[i] = a[j];
+            a[j] = t;
+        }
+    }
+
+    // keep only edges that still join two different sets, returns the new end
+    private int filter(long[] a, int lo, int hi) {
+        int out = lo;
+        for (int k = lo; k < hi; ++k) {
+            int e = (int) a[k];
+            if (partition.findSet(from[e]) != partition.findSet(to[e]))
+                a[out++] = a[k];
+        }
+        return out;
+    }
+
+    private static long medianOfThree(long x, long y, long z) {
+        return Math.max(Math.min(x, y), Math.min(Math.max(x, y), z));
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.SplittableRandom;
+
+// synthetic connected graphs in the edge file format, for benchmarks and load
+// tests. the same seed always gives the same file. every shape starts from a
+// spanning tree, so Kruskal and Prim see one component:
+//
+//   random     a random tree, then uniformly random pairs up to E edges
+//   grid       a road-like lattice of side sqrt(V): a comb spanning tree, the
+//              other lattice edges in random order, then short local
+//              shortcuts once the lattice is used up
+//   power_law  Barabasi-Albert preferential attachment, about E / V edges
+//              per new vertex, so degrees follow a power law
+//   complete   every pair once, E is ignored
+//
+// weights are uniform in [minWeight, maxWeight]. parallel edges can appear in
+// random and power_law graphs, self loops never do
+class GraphGenerator {
+    public enum Shape { RANDOM, GRID, POWER_LAW, COMPLETE }
+
+    private final SplittableRandom rnd;
+    private final int minWeight, maxWeight;
+
+    public int V, E;
+    public int[] from, to, wgt;
+
+    public GraphGenerator(long seed, int _minWeight, int _maxWeight) {
+        if (_minWeight > _maxWeight)
+            throw new IllegalArgumentException("empty weight range " + _minWeight + ".." + _maxWeight);
+        rnd = new SplittableRandom(seed);
+        minWeight = _minWeight;
+        maxWeight = _maxWeight;
+    }
+
+    public GraphGenerator generate(Shape shape, int _V, int _E) {
+        switch (shape) {
+            case RANDOM: return random(_V, _E);
+            case GRID: return grid(_V, _E);
+            case POWER_LAW: return powerLaw(_V, _E);
+            default: return complete(_V);
+        }
+    }
+
+    public GraphGenerator random(int _V, int _E) {
+        begin(_V, _E);
+        int[] perm = permutation(V);
+        for (int i = 1; i < V; ++i)
+            add(perm[i], perm[rnd.nextInt(i)]);
+        while (E < from.length) {
+            int u = 1 + rnd.nextInt(V), v = 1 + rnd.nextInt(V);
+            if (u != v)
+                add(u, v);
+        }
+        return this;
+    }
+
+    public GraphGenerator grid(int _V, int _E) {
+        begin(_V, _E);
+        int cols = (int) Math.ceil(Math.sqrt(V));
+
+        // comb: every row is a path, column 0 joins the rows
+        for (int v = 1; v <= V; ++v) {
+            int c = (v - 1) % cols;
+            if (c > 0)
+                add(v - 1, v);
+            else if (v > cols)
+                add(v - cols, v);
+        }
+
+        // the remaining vertical lattice edges, shuffled
+        int n = 0;
+        int[] rest = new int[V];
+        for (int v = cols + 1; v <= V; ++v)
+            if ((v - 1) % cols != 0)
+                rest[n++] = v;
+        for (int i = n - 1; i > 0; --i) {
+            int j = rnd.nextInt(i + 1), x = rest[i];
+            rest[i] = rest[j];
+            rest[j] = x;
+        }
+        for (int i = 0; i < n && E < from.length; ++i)
+            add(rest[i] - cols, rest[i]);
+
+        // local shortcuts, at most 3 rows and columns away
+        while (E < from.length) {
+            int u = 1 + rnd.nextInt(V);
+            int r = (u - 1) / cols + rnd.nextInt(7) - 3, c = (u - 1) % cols + rnd.nextInt(7) - 3;
+            int v = r * cols + c + 1;
+            if (r >= 0 && c >= 0 && c < cols && v <= V && v != u)
+                add(u, v);
+        }
+        return this;
+    }
+
+    public GraphGenerator powerLaw(int _V, int _E) {
+        begin(_V, _E);
+        // every edge end in one list, so a uniform pick from it favours high degrees
+        int[] ends = new int[2 * from.length];
+        int n = 0;
+        int per = V > 1 ? from.length / (V - 1) : 0, extra = V > 1 ? from.length % (V - 1) : 0;
+        for (int v = 2; v <= V; ++v) {
+            int k = Math.min(v - 1, per + (v - 2 < extra ? 1 : 0));
+            for (int i = 0; i < k; ++i) {
+                int u = n == 0 ? 1 : ends[rnd.nextInt(n)];
+                add(u, v);
+                ends[n++] = u;
+                ends[n++] = v;
+            }
+        }
+        // the first vertices could not take their share, fill up at random
+        while (E < from.length) {
+            int u = ends[rnd.nextInt(n)], v = 1 + rnd.nextInt(V);
+            if (u != v)
+                add(u, v);
+        }
+        return this;
+    }
+
+    public GraphGenerator complete(int _V) {
+        begin(_V, (int) Math.min(Integer.MAX_VALUE, (long) _V * (_V - 1) / 2));
+        for (int u = 1; u <= V; ++u)
+            for (int v = u + 1; v <= V; ++v)
+                add(u, v);
+        return this;
+    }
+
+    private void begin(int _V, int _E) {
+        if (_V < 1)
+            throw new IllegalArgumentException("a graph needs at least one vertex");
+        if ((long) _E < _V - 1L)
+            throw new IllegalArgumentException(_E + " edges cannot connect " + _V + " vertices");
+        if (_V == 1 && _E > 0)
+            throw new IllegalArgumentException("a single vertex has no edges without self loops, asked for " + _E);
+        if (_E > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("too many edges: " + _E);
+        V = _V;
+        E = 0;
+        from = new int[_E];
+        to = new int[_E];
+        wgt = new int[_E];
+    }
+
+    private void add(int u, int v) {
+        from[E] = u;
+        to[E] = v;
+        wgt[E++] = minWeight + (int) rnd.nextLong((long) maxWeight - minWeight + 1);
+    }
+
+    // 1..V in random order, perm[0..V-1]
+    private int[] permutation(int n) {
+        int[] perm = new int[n];
+        for (int i = 0; i < n; ++i) {
+            int j = rnd.nextInt(i + 1);
+            perm[i] = perm[j];
+            perm[j] = i + 1;
+        }
+        return perm;
+    }
+
+    // "V E" on the first line, then "from to weight" per edge
+    public void write(String file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16)) {
+            byte[] line = new byte[40];
+            out.write((V + " " + E + "\n").getBytes());
+            for (int e = 0; e < E; ++e) {
+                int n = line.length;
+                line[--n] = '\n';
+                n = digits(line, n, wgt[e]);
+                line[--n] = ' ';
+                n = digits(line, n, to[e]);
+                line[--n] = ' ';
+                n = digits(line, n, from[e]);
+                out.write(line, n, line.length - n);
+            }
+        }
+    }
+
+    // x written right to left ending before line[n], returns where it starts
+    private static int digits(byte[] line, int n, int x) {
+        long y = Math.abs((long) x);
+        do {
+            line[--n] = (byte) ('0' + y % 10);
+            y /= 10;
+        } while (y != 0);
+        if (x < 0)
+            line[--n] = '-';
+        return n;
+    }
+
+    // e.g. "java GraphGenerator grid 1000000 2500000 1 100 42 road.txt"
+    public static void main(String[] args) throws IOException {
+        if (args.length != 7) {
+            System.err.println("usage: java GraphGenerator random|grid|power_law|complete <V> <E> <min weight> <max weight> <seed> <edge file>");
+            System.exit(1);
+        }
+        long begin = System.nanoTime();
+        GraphGenerator gen = new GraphGenerator(Long.parseLong(args[5]), Integer.parseInt(args[3]), Integer.parseInt(args[4]))
+                .generate(Shape.valueOf(args[0].toUpperCase()), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        gen.write(args[6]);
+        System.out.printf("Wrote %d vertices and %d edges to %s in %.1f ms%n",
+                gen.V, gen.E, args[6], (System.nanoTime() - begin) / 1e6);
+    }
+}
@@ -1,13 +1,17 @@
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
-class Heap {
+// indexed binary heap
+class Heap implements VertexQueue {
     private int[] a;       // heap array
     private int[] hPos;    // hPos[h[k]] == k
     private int[] dist;    // dist[v] = priority of v
     private int N;         // heap size
+    private long siftUps, siftDowns; // calls, counted with Metrics.ENABLED
    
     public Heap(int maxSize, int[] _dist, int[] _hPos) {
         N = 0;
@@ -21,14 +25,25 @@ class Heap {
         return N == 0;
     }
 
-    // method to perform sift-up operation in the heap
+    // checking if v is in the heap
+    public boolean contains(int v) {
+        return hPos[v] != 0;
+    }
+
+    // dist[v] was lowered, move v towards the root
+    public void decreaseKey(int v) {
+        siftUp(hPos[v]);
+    }
+
+    // method to perform sift-up operation in the heap, stopping at the root
+    // rather than parking a sentinel in the caller's dist[0]
     public void siftUp(int k) {
         int v = a[k]; // item to be moved up
-        a[0] = 0;
-        dist[0] = Integer.MIN_VALUE;
+        if (Metrics.ENABLED)
+            ++siftUps;
 
         // move up the heap until we find the correct position
-        while (dist[v] < dist[a[k / 2]]) {
+        while (k > 1 && dist[v] < dist[a[k / 2]]) {
             a[k] = a[k / 2];
             hPos[a[k]] = k;
             k = k / 2;
@@ -41,6 +56,8 @@ class Heap {
     public void siftDown(int k) {
         int v, j;
         v = a[k];  
+        if (Metrics.ENABLED)
+            ++siftDowns;
         
         // move down the heap until we find the correct position
         while (k <= N / 2) {
@@ -71,11 +88,150 @@ class Heap {
         // removing an element from the heap
         int v = a[1];
         hPos[v] = 0; // v is no longer in heap
-        a[N + 1] = 0;  // put null node into empty spot
-        a[1] = a[N--];
-        siftDown(1);
+        a[1] = a[N];
+        a[N--] = 0;  // put null node into empty spot
+        if (N > 0)
+            siftDown(1);
         return v;
     }
+
+    public long siftUps() {
+        return siftUps;
+    }
+
+    public long siftDowns() {
+        return siftDowns;
+    }
+}
+
+// walks the neighbours of one vertex at a time, vert and wgt hold the current edge
+abstract class EdgeCursor {
+    public int vert; // neighbouring vertex
+    public int wgt;  // weight of the edge to it
+
+    // position the cursor before the first neighbour of v
+    public abstract void start(int v);
+
+    // move to the next neighbour, false once the list is used up
+    public abstract boolean next();
+}
+
+// storage backend holding the adjacency lists of a graph
+interface Adjacency {
+    // a new cursor over this storage, cursors are not thread safe
+    EdgeCursor cursor();
+
+    // number of neighbours of v
+    int degree(int v);
+}
+
+// a storage whose weights can change in place, CSR and the linked lists.
+// snapshots and compressed lists are read-only and do not implement it
+interface MutableAdjacency extends Adjacency {
+    // give every u -> v entry the weight w, returns the lightest old weight
+    // or Integer.MAX_VALUE when v is not a neighbour of u
+    int setWeight(int u, int v, int w);
+}
+
+// compressed sparse row adjacency, the neighbours of v are
+// targets[offsets[v]] .. targets[offsets[v + 1] - 1] with matching weights
+class CsrAdjacency implements MutableAdjacency {
+    public final int[] offsets;
+    public final int[] targets;
+    public final int[] weights;
+
+    public CsrAdjacency(int[] _offsets, int[] _targets, int[] _weights) {
+        offsets = _offsets;
+        targets = _targets;
+        weights = _weights;
+    }
+
+    // builds the arrays in two passes over the edge list, the first counts
+    // the degree of every vertex and the second drops each edge into its slot
+    public static CsrAdjacency build(int V, int E, int[] from, int[] to, int[] wgt) {
+        CsrAdjacency g = new CsrAdjacency(new int[V + 2], new int[2 * E], new int[2 * E]);
+        g.load(E, from, to, wgt);
+        return g;
+    }
+
+    // builds the lists again in the same arrays from a list of as many
+    // edges over as many vertices, e.g. after the vertices were renumbered
+    public CsrAdjacency refill(int E, int[] from, int[] to, int[] wgt) {
+        if (2 * E != targets.length)
+            throw new IllegalArgumentException(E + " edges do not fit arrays built for " + targets.length / 2);
+        Arrays.fill(offsets, 0);
+        load(E, from, to, wgt);
+        return this;
+    }
+
+    private void load(int E, int[] from, int[] to, int[] wgt) {
+        int u, v, e;
+        int V = offsets.length - 2;
+        int[] fill;
+
+        // pass one: degrees
+        for (e = 0; e < E; ++e) {
+            offsets[from[e] + 1]++;
+            offsets[to[e] + 1]++;
+        }
+
+        // running sum turns the degrees into start positions
+        for (v = 1; v <= V + 1; ++v)
+            offsets[v] += offsets[v - 1];
+
+        // pass two: fill each vertex's range from the back so the neighbours
+        // come out in the same order as the linked lists, newest edge first
+        fill = new int[V + 1];
+        for (v = 1; v <= V; ++v)
+            fill[v] = offsets[v + 1];
+
+        for (e = 0; e < E; ++e) {
+            u = from[e];
+            v = to[e];
+            targets[--fill[u]] = v;
+            weights[fill[u]] = wgt[e];
+            targets[--fill[v]] = u;
+            weights[fill[v]] = wgt[e];
+        }
+    }
+
+    public int vertices() {
+        return offsets.length - 2;
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    public int setWeight(int u, int v, int w) {
+        int old = Integer.MAX_VALUE;
+        for (int i = offsets[u]; i < offsets[u + 1]; ++i) {
+            if (targets[i] == v) {
+                old = Math.min(old, weights[i]);
+                weights[i] = w;
+            }
+        }
+        return old;
+    }
+
+    public EdgeCursor cursor() {
+        return new EdgeCursor() {
+            private int pos, end;
+
+            public void start(int v) {
+                pos = offsets[v];
+                end = offsets[v + 1];
+            }
+
+            public boolean next() {
+                if (pos == end)
+                    return false;
+                vert = targets[pos];
+                wgt = weights[pos++];
+                return true;
+            }
+        };
+    }
 }
 
 class Graph {
@@ -84,37 +240,102 @@ class Graph {
         public int wgt; // weight of the edge
         public Node next; // reference to the next node in the list
     }
+
+    // how the adjacency lists are kept in memory, SNAPSHOT maps a binary
+    // file written by GraphSnapshot instead of parsing a text file and
+    // COMPRESSED packs sorted lists as varint gaps, read-only like SNAPSHOT
+    public enum Storage { LISTS, CSR, SNAPSHOT, COMPRESSED }
     
     private int V, E; // no of vertices and edges
     private Node[] adj; // array of afjacency list
     private Node z; // sentinel node
+    private Adjacency store; // backend the algorithms walk
     private int[] mst; // array to store the minimum spanning tree
     private int[] visited; // tracking the visited vertices
+    private String loadReport; // summary of how the file was parsed
+    private int minWeight, maxWeight; // range of the edge weights, widened by setWeight
+    private final AtomicLong version = new AtomicLong(); // bumped by every setWeight, read by other threads
+    private AlgorithmListener listener = AlgorithmListener.NONE; // trace hook, silent by default
+    private VertexOrdering ordering; // renumbering applied at load, null keeps the file's numbers
+    private final ConcurrentLinkedQueue<QueryWorkspace> workspaces = new ConcurrentLinkedQueue<>(); // idle, see workspace()
     
     public Graph(String graphFile) throws IOException {
-        int u, v; // vertices
-        int e, wgt; // edge count and weight
-        Node t; // temporary node for constructing the list
+        this(graphFile, Storage.LISTS);
+    }
 
-        // opening a file and setting up a buffered reader to read from it
-        FileReader fr = new FileReader(graphFile);
-        BufferedReader reader = new BufferedReader(fr);
-                   
-        String splits = " +";  // multiple whitespace as delimiter
-        String line = reader.readLine(); // read first line of file  
+    public Graph(String graphFile, Storage storage) throws IOException {
+        this(graphFile, storage, null);
+    }
 
-        String[] parts = line.split(splits); // split the line into parts 
-        
-        
-        V = Integer.parseInt(parts[0]);
-        E = Integer.parseInt(parts[1]);
+    // with an ordering the vertices are renumbered for locality before the
+    // storage is built. the algorithms then work in the new numbers, the
+    // printing maps them back and internal() / original() convert
+    public Graph(String graphFile, Storage storage, VertexOrdering.Method order) throws IOException {
+        if (storage == Storage.SNAPSHOT && order != null)
+            throw new IllegalArgumentException("a snapshot keeps the numbering it was written with");
+        if (storage == Storage.SNAPSHOT) {
+            long begin = System.nanoTime();
+            MappedAdjacency m = GraphSnapshot.open(graphFile);
+            V = m.V;
+            E = m.E;
+            visited = new int[V + 1];
+            store = m;
+            minWeight = m.minWeight;
+            maxWeight = m.maxWeight;
+            loadReport = String.format("Mapped snapshot with %d vertices and %d edges in %.1f ms",
+                    V, E, (System.nanoTime() - begin) / 1e6);
+            if (Metrics.ENABLED) {
+                Metrics.phase(Metrics.Area.LOAD, Metrics.Phase.BUILD, begin);
+                Metrics.loaded(graphFile, storage.name(), V, E, begin);
+            }
+            return;
+        }
 
-        // initialising the visited array
+        // memory-mapped parallel parse of the whole file into primitive arrays
+        long begin = System.nanoTime();
+        EdgeFileParser edges = EdgeFileParser.parse(graphFile);
+        long parsed = Metrics.ENABLED ? Metrics.phase(Metrics.Area.LOAD, Metrics.Phase.PARSE, begin) : 0;
+        loadReport = edges.report();
+        V = edges.V;
+        E = edges.E;
         visited = new int[V + 1];
-        for (int i = 0; i <= V; i++) {
-            visited[i] = 0;
+        weightRange(edges.wgt, E);
+
+        // the ordering reads a CSR in the file's numbering, CSR storage then
+        // refills those arrays in the new one
+        CsrAdjacency csr = null;
+        if (order != null) {
+            csr = CsrAdjacency.build(V, E, edges.from, edges.to, edges.wgt);
+            ordering = VertexOrdering.compute(order, csr, edges.from, edges.to, E);
+            ordering.relabel(edges.from, edges.to, E);
+            loadReport += "\n" + ordering.report();
+            if (Metrics.ENABLED)
+                parsed = Metrics.phase(Metrics.Area.LOAD, Metrics.Phase.REORDER, parsed);
         }
-        
+
+        if (storage != Storage.CSR)
+            csr = null; // only CSR storage reuses it, the others can have the memory
+        if (storage == Storage.CSR) {
+            store = csr != null ? csr.refill(E, edges.from, edges.to, edges.wgt)
+                    : CsrAdjacency.build(V, E, edges.from, edges.to, edges.wgt);
+        } else if (storage == Storage.COMPRESSED) {
+            store = CompressedAdjacency.build(V, E, edges.from, edges.to, edges.wgt);
+        } else {
+            buildLists(edges);
+            store = new Lists();
+        }
+        if (Metrics.ENABLED) {
+            Metrics.phase(Metrics.Area.LOAD, Metrics.Phase.BUILD, parsed);
+            Metrics.loaded(graphFile, storage.name(), V, E, begin);
+        }
+    }
+
+    // linked list storage, one heap node per half-edge
+    private void buildLists(EdgeFileParser edges) {
+        int u, v; // vertices
+        int e, wgt; // edge count and weight
+        Node t; // temporary node for constructing the list
+
         z = new Node(); 
         z.next = z;
         
@@ -123,14 +344,11 @@ class Graph {
         for (v = 1; v <= V; ++v)
             adj[v] = z;               
         
-        // looping through each edge in the file and creating a list
-        for (e = 1; e <= E; ++e) {
-            line = reader.readLine(); // reads next line of file
-            parts = line.split(splits);
-            // parse the parts as source, destination and weight
-            u = Integer.parseInt(parts[0]);
-            v = Integer.parseInt(parts[1]); 
-            wgt = Integer.parseInt(parts[2]);
+        // looping through each parsed edge and creating a list
+        for (e = 0; e < E; ++e) {
+            u = edges.from[e];
+            v = edges.to[e]; 
+            wgt = edges.wgt[e];
             
             // new node t for the destination vertex v
             t = new Node();
@@ -147,31 +365,184 @@ class Graph {
             adj[v] = t;
         }	       
     }
+
+    // range of the weights, used to pick a monotone queue for Dijkstra
+    private void weightRange(int[] wgt, int n) {
+        minWeight = n == 0 ? 0 : Integer.MAX_VALUE;
+        maxWeight = n == 0 ? 0 : Integer.MIN_VALUE;
+        for (int e = 0; e < n; ++e) {
+            minWeight = Math.min(minWeight, wgt[e]);
+            maxWeight = Math.max(maxWeight, wgt[e]);
+        }
+    }
+
+    public int vertices() {
+        return V;
+    }
+
+    public int edges() {
+        return E;
+    }
+
+    // the storage backend, for engines that walk the graph themselves
+    public Adjacency adjacency() {
+        return store;
+    }
+
+    // borrow a reusable workspace for allocation free queries, hand it back
+    // with release(). an explicit pool rather than a ThreadLocal, whose
+    // entries would pin the graph to every long lived pool thread
+    public QueryWorkspace workspace() {
+        QueryWorkspace ws = workspaces.poll();
+        return ws != null ? ws : new QueryWorkspace(this);
+    }
+
+    public void release(QueryWorkspace ws) {
+        workspaces.offer(ws);
+    }
+
+    // install a listener for the algorithm events, ConsoleTrace prints them
+    public void setListener(AlgorithmListener _listener) {
+        if (_listener == null)
+            _listener = AlgorithmListener.NONE;
+        if (ordering != null && _listener != AlgorithmListener.NONE)
+            _listener = ordering.relabel(_listener);
+        listener = _listener;
+    }
+
+    public int minWeight() {
+        return minWeight;
+    }
+
+    public int maxWeight() {
+        return maxWeight;
+    }
+
+    // change the weight of the edge u - v, every parallel copy included, and
+    // return its lightest old weight. throws IllegalStateException on SNAPSHOT
+    // and COMPRESSED storage, whose weights are read-only
+    public int setWeight(int u, int v, int w) {
+        if (!weightsMutable())
+            throw new IllegalStateException("the weights of a snapshot or compressed graph are read-only");
+        MutableAdjacency m = (MutableAdjacency) store;
+        int old = m.setWeight(u, v, w);
+        if (old == Integer.MAX_VALUE)
+            throw new IllegalArgumentException("no edge " + u + " - " + v);
+        if (u != v)
+            m.setWeight(v, u, w);
+        minWeight = Math.min(minWeight, w);
+        maxWeight = Math.max(maxWeight, w);
+        version.incrementAndGet();
+        return old;
+    }
+
+    // false for SNAPSHOT and COMPRESSED storage, where setWeight throws
+    public boolean weightsMutable() {
+        return store instanceof MutableAdjacency;
+    }
+
+    // no of weight changes so far, lets cached results tell they are stale
+    public long version() {
+        return version.get();
+    }
+
+    // throughput of the file load
+    public String loadReport() {
+        return loadReport;
+    }
+
+    // walks the linked lists hanging off adj[]
+    private class Lists implements MutableAdjacency {
+        public EdgeCursor cursor() {
+            return new EdgeCursor() {
+                private Node t;
+
+                public void start(int v) {
+                    t = adj[v];
+                }
+
+                public boolean next() {
+                    if (t == z)
+                        return false;
+                    vert = t.vert;
+                    wgt = t.wgt;
+                    t = t.next;
+                    return true;
+                }
+            };
+        }
+
+        public int degree(int v) {
+            int d = 0;
+            for (Node t = adj[v]; t != z; t = t.next)
+                d++;
+            return d;
+        }
+
+        public int setWeight(int u, int v, int w) {
+            int old = Integer.MAX_VALUE;
+            for (Node t = adj[u]; t != z; t = t.next) {
+                if (t.vert == v) {
+                    old = Math.min(old, t.wgt);
+                    t.wgt = w;
+                }
+            }
+            return old;
+        }
+    }
    
-    // method to convert an integer to it's corresponding character
+    // the number this graph uses for the file's vertex v
+    public int internal(int v) {
+        return ordering == null ? v : ordering.newId(v);
+    }
+
+    // the file's number for vertex v, -1 stays -1
+    public int original(int v) {
+        return ordering == null ? v : ordering.oldId(v);
+    }
+
+    // the renumbering applied at load, null if there was none
+    public VertexOrdering ordering() {
+        return ordering;
+    }
+
+    // method to convert an integer to it's corresponding character, in the file's numbering
     public char toChar(int u) {
-        return (char)(u + 64);
+        return (char)(original(u) + 64);
+    }
+
+    // how v is printed: a letter while the graph fits A..Z, else the file's number
+    public String name(int u) {
+        return V <= 26 ? String.valueOf(toChar(u)) : String.valueOf(original(u));
     }
     
     // displaying the adjacency list
     public void display() {
         int v;
-        Node n;
+        EdgeCursor n = store.cursor();
         
-        // for loop to iterate over each vertex and its adjacency list
-        for (v = 1; v <= V; ++v) {
-            System.out.print("\nAdj[" + toChar(v) + "] ->" );
-            for (n = adj[v]; n != z; n = n.next) 
-                System.out.print(" |" + toChar(n.vert) + " | " + n.wgt + "| ->");    
+        // for loop to iterate over each vertex and its adjacency list, in the file's order
+        for (int o = 1; o <= V; ++o) {
+            v = internal(o);
+            System.out.print("\nAdj[" + name(v) + "] ->" );
+            n.start(v);
+            while (n.next()) 
+                System.out.print(" |" + name(n.vert) + " | " + n.wgt + "| ->");    
         }
         System.out.println("");
     }
 
     public void MST_Prim(int s) {
+        MST_Prim(s, VertexQueue.Kind.BINARY);
+    }
+
+    // Prim's algorithm using the given kind of priority queue
+    public void MST_Prim(int s, VertexQueue.Kind kind) {
         int v, u;
         int wgt, wgt_sum = 0;
         int[] dist, parent, hPos;
-        Node t;
+        EdgeCursor t = store.cursor();
+        Metrics.Run run = Metrics.ENABLED ? Metrics.begin(Metrics.Area.PRIM, s) : null;
         
         // initialising arrays and variables for prim's
         dist = new int[V + 1];
@@ -187,22 +558,32 @@ class Graph {
         }
         dist[s] = 0;
         
-        Heap h =  new Heap(V, dist, hPos); // creating a heap
+        VertexQueue h = kind.create(V, dist, hPos); // creating a heap, Prim's keys are not monotone
+        AlgorithmListener trace = listener;
+        trace.started(AlgorithmListener.Algorithm.PRIM, s);
+        if (Metrics.ENABLED)
+            run.phase(Metrics.Phase.INIT);
         h.insert(s); // inserting starting vertex
-        
-        // printing the initial state
-        System.out.println("\nStep 1: Vertex " + toChar(s) + " added to MST");
+        trace.heapOperation(AlgorithmListener.Algorithm.PRIM, AlgorithmListener.HeapOp.INSERT, s);
+        if (Metrics.ENABLED)
+            ++run.heapInserts;
     
         // performing Prim's algorithm
         int step = 1;
         while (!h.isEmpty()) {
             v = h.remove();
+            trace.heapOperation(AlgorithmListener.Algorithm.PRIM, AlgorithmListener.HeapOp.REMOVE, v);
+            if (Metrics.ENABLED)
+                ++run.heapRemoves;
             dist[v] = -dist[v];
             wgt_sum += -dist[v];
     
-            for (t = adj[v]; t != z; t = t.next) {
+            t.start(v);
+            while (t.next()) {
                 u = t.vert;
                 wgt = t.wgt;
+                if (Metrics.ENABLED)
+                    ++run.edgesScanned;
     
                 // update the distance and parent arrays if a shorter path is found
                 if (wgt < dist[u]) {
@@ -210,21 +591,35 @@ class Graph {
                     parent[u] = v;
     
                     // insert or update the vertex in the heap
-                    if (hPos[u] == 0) {
+                    if (!h.contains(u)) {
                         h.insert(u);
+                        trace.heapOperation(AlgorithmListener.Algorithm.PRIM, AlgorithmListener.HeapOp.INSERT, u);
+                        if (Metrics.ENABLED)
+                            ++run.heapInserts;
                     } else {
-                        h.siftUp(hPos[u]);
+                        h.decreaseKey(u);
+                        trace.heapOperation(AlgorithmListener.Algorithm.PRIM, AlgorithmListener.HeapOp.DECREASE_KEY, u);
+                        if (Metrics.ENABLED)
+                            ++run.decreaseKeys;
                     }
+                    if (Metrics.ENABLED)
+                        ++run.edgesRelaxed;
                 }
             }
             
-            // print the current state
-            if (parent[v] != -1) {
-                System.out.println("Step " + step + ": Edge " + toChar(parent[v]) + " -> " + toChar(v) + " added to MST");
-            }
+            // report the current state
+            trace.vertexSettled(AlgorithmListener.Algorithm.PRIM, v, parent[v], step);
+            if (parent[v] != -1)
+                trace.edgeAccepted(AlgorithmListener.Algorithm.PRIM, parent[v], v, -dist[v]);
             step++;
         }
     
+        if (Metrics.ENABLED) {
+            run.sifts(h);
+            run.phase(Metrics.Phase.MAIN_LOOP);
+            run.end();
+        }
+
         // storing the MST parent array
         mst = parent; 
         // printing total weight of the MST
@@ -235,23 +630,44 @@ class Graph {
     // displaying the MST
     public void showMST() {
         System.out.print("\n\nMinimum Spanning tree parent array is:\n");
-        for (int v = 1; v <= V; ++v)
-            System.out.println(toChar(v) + " --> " + toChar(mst[v]));
+        for (int o = 1; o <= V; ++o)
+            System.out.println(name(internal(o)) + " --> " + name(mst[internal(o)]));
         System.out.println("");
     }
 
 
-    // Dijikstra's Algorithm
+    // Dijikstra's Algorithm, on a bucket queue or radix heap when the weights allow it
     public void SPT_Dijkstra(int s) {
-        int v, u;
-        int wgt = 0;
-        int[]  dist, parent, hPos;
-        Node t;
+        SPT_Dijkstra(s, minWeight >= 0 ? VertexQueue.Kind.MONOTONE : VertexQueue.Kind.BINARY);
+    }
+
+    // Dijkstra's algorithm using the given kind of priority queue
+    public void SPT_Dijkstra(int s, VertexQueue.Kind kind) {
+        int[] dist = new int[V + 1];
+        int[] parent = new int[V + 1];
+        shortestPaths(s, dist, parent, kind);
+        printSPT(s, dist, parent);
+    }
+
+    // the same table computed in parallel by delta-stepping with bucket width delta
+    public void SPT_DeltaStepping(int s, int delta) {
+        int[] dist = new int[V + 1];
+        int[] parent = new int[V + 1];
+        new DeltaStepping(this).shortestPaths(s, dist, parent, delta);
+        printSPT(s, dist, parent);
+    }
+
+    // fills dist and parent with the shortest path tree from s. when two
+    // shortest paths tie, u keeps the lowest numbered parent, so with positive
+    // weights the tree does not depend on which queue settled vertices first
+    public void shortestPaths(int s, int[] dist, int[] parent, VertexQueue.Kind kind) {
+        int v, u, d;
+        int[] hPos;
+        EdgeCursor t = store.cursor();
+        Metrics.Run run = Metrics.ENABLED ? Metrics.begin(Metrics.Area.DIJKSTRA, s) : null;
         boolean[] settled = new boolean[V + 1];
 
         // initalising arrays and variables
-        dist = new int[V + 1];
-        parent = new int[V + 1];
         hPos = new int[V + 1];
 
         // initialising distance, parent and heap position arrays
@@ -264,32 +680,71 @@ class Graph {
         dist[s] = 0;
 
         // creating a heap and inserting the starting vertex
-        Heap h = new Heap(V, dist, hPos);
+        if (kind.monotone() && minWeight < 0)
+            throw new IllegalArgumentException(kind + " needs non-negative edge weights");
+        VertexQueue h = kind.create(V, dist, hPos, maxWeight);
+        AlgorithmListener trace = listener;
+        trace.started(AlgorithmListener.Algorithm.DIJKSTRA, s);
+        if (Metrics.ENABLED)
+            run.phase(Metrics.Phase.INIT);
         h.insert(s);
+        trace.heapOperation(AlgorithmListener.Algorithm.DIJKSTRA, AlgorithmListener.HeapOp.INSERT, s);
+        if (Metrics.ENABLED)
+            ++run.heapInserts;
 
+        int step = 1;
         while (!h.isEmpty()) {
             v = h.remove();
+            trace.heapOperation(AlgorithmListener.Algorithm.DIJKSTRA, AlgorithmListener.HeapOp.REMOVE, v);
+            if (Metrics.ENABLED)
+                ++run.heapRemoves;
+            trace.vertexSettled(AlgorithmListener.Algorithm.DIJKSTRA, v, parent[v], step++);
             settled[v] = true;
 
-            for (t = adj[v]; t != z; t = t.next) {
+            t.start(v);
+            while (t.next()) {
                 u = t.vert;
-                if (!settled[u] && dist[v] + t.wgt < dist[u]) {
-                    dist[u] = dist[v] + t.wgt;
+                if (Metrics.ENABLED)
+                    ++run.edgesScanned;
+                if (settled[u])
+                    continue;
+                d = dist[v] + t.wgt;
+                if (d < dist[u]) {
+                    dist[u] = d;
                     parent[u] = v;
-                    if (hPos[u] == 0) {
+                    if (!h.contains(u)) {
                         h.insert(u);
+                        trace.heapOperation(AlgorithmListener.Algorithm.DIJKSTRA, AlgorithmListener.HeapOp.INSERT, u);
+                        if (Metrics.ENABLED)
+                            ++run.heapInserts;
                     } else {
-                        h.siftUp(hPos[u]);
+                        h.decreaseKey(u);
+                        trace.heapOperation(AlgorithmListener.Algorithm.DIJKSTRA, AlgorithmListener.HeapOp.DECREASE_KEY, u);
+                        if (Metrics.ENABLED)
+                            ++run.decreaseKeys;
                     }
+                    if (Metrics.ENABLED)
+                        ++run.edgesRelaxed;
+                } else if (d == dist[u] && v < parent[u]) {
+                    parent[u] = v;
                 }
             }
         }
 
-        // displaying the SPT in a table
+        if (Metrics.ENABLED) {
+            run.sifts(h);
+            run.phase(Metrics.Phase.MAIN_LOOP);
+            run.end();
+        }
+    }
+
+    // displaying the SPT in a table
+    public void printSPT(int s, int[] dist, int[] parent) {
         System.out.println("Vertex\t\tDistance \t\tPathway");
-        for (v = 1; v <= V; ++v) {
+        for (int o = 1; o <= V; ++o) {
+            int v = internal(o);
             if (v != s) {
-                System.out.print(toChar(v) + "\t\t" + dist[v] + "\t\t");
+                System.out.print(name(v) + "\t\t" + dist[v] + "\t\t");
                 printPath(s, v, parent);
                 System.out.println();
             }
@@ -299,51 +754,57 @@ class Graph {
     // helper method to print the shortest path from start to vertex
     private void printPath(int start, int vertex, int[] parent) {
         if (vertex == start) {
-            System.out.print(toChar(start));
+            System.out.print(name(start));
         } else if (parent[vertex] == -1) {
             System.out.print("--");
         } else {
             printPath(start, parent[vertex], parent);
-            System.out.print(" --> " + toChar(vertex));
+            System.out.print(" --> " + name(vertex));
         }
     }
 
-    // Depth first search
+    // Depth first search, printing the vertices in the order they are discovered.
+    // each call starts with nothing visited
     public void DF(int v) {
-        visited[v] = 1; // marking current vertex as visited
-        System.out.print(toChar(v) + " "); // print current vertex 
-
-        // for loop to iterate through the adjacency list of the current node
-        for (Node t = adj[v]; t != z; t = t.next) {
-            // if the adjacent vertex hasn't been visited, recursively do DFS on it
-            if (visited[t.vert] == 0) {
-                DF(t.vert);
+        new DepthFirstSearch(this).run(v, new DepthFirstSearch.Visitor() {
+            public void discover(int u, int parent) {
+                System.out.print(name(u) + " ");
             }
-        }
+        });
     }
 
+    // components, bridges and articulation points of the whole graph
+    public Connectivity connectivity() {
+        return new Connectivity(this);
+    }
+
+    // hop count and BFS parent of every vertex from s, computed in parallel
+    public ParallelBFS levels(int s) {
+        return new ParallelBFS(this).run(s);
+    }
 
     // Breadth first search
     public void breadthFirst(int s) {
         visited = new int[V + 1]; // keeping track of visited arrays
 
         // initialising th queue
-        int[] queue = new int[V];
+        int[] queue = new int[V + 1];
         int front = -1, rear = -1;
+        EdgeCursor n = store.cursor();
 
         // marking the starting vertex as visited an enqueue it
-        visited[s] = s;
+        visited[s] = 1;
         queue[++rear] = s;
 
         // while queue isn't emoty
         while (front != rear) {
             
             int v = queue[++front]; // dequeue a vertex from the front of the queue
-            System.out.print(toChar(v) + " ");// printing the dequeued vertex
+            System.out.print(name(v) + " ");// printing the dequeued vertex
 
             // going through the adjacency list of the dequeued vertex
-            Node n = adj[v];
-            while (n != z) {
+            n.start(v);
+            while (n.next()) {
                 int u = n.vert;
 
                 // if u hasn't been visited mark it as visited and enqueue it
@@ -351,16 +812,25 @@ class Graph {
                     visited[u] = 1;
                     queue[++rear] = u;
                 }
-                // move to next adjacent vertex
-                n = n.next;
             }
         }
     }
 }
 
 // displaying all the methods
+// optional arguments pick the storage, the heap and a vertex ordering, e.g. "java GraphLists csr quad rcm"
 public class GraphLists {
     public static void main(String[] args) throws IOException {
+        Graph.Storage storage = Graph.Storage.LISTS;
+        VertexQueue.Kind heap = VertexQueue.Kind.BINARY;
+        VertexOrdering.Method order = null;
+        if (args.length > 0)
+            storage = Graph.Storage.valueOf(args[0].toUpperCase());
+        if (args.length > 1)
+            heap = VertexQueue.Kind.valueOf(args[1].toUpperCase());
+        if (args.length > 2)
+            order = VertexOrdering.Method.valueOf(args[2].toUpperCase());
+
         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
 
         System.out.print("Enter the name of the text file which has the graph: ");
@@ -369,19 +839,24 @@ public class GraphLists {
         System.out.print("Enter the beginning vertex (as a number): ");
         int startingVertex = Integer.parseInt(br.readLine());
 
-        Graph g = new Graph(fileName);
+        Graph g = new Graph(fileName, storage, order);
+        int s = g.internal(startingVertex);
+        g.setListener(new ConsoleTrace());
+        System.err.println(g.loadReport());
 
-        System.out.println("\nDepth First Search beiginning from vertex " + g.toChar(startingVertex) + ":");
-        g.DF(startingVertex);
+        System.out.println("\nDepth First Search beiginning from vertex " + g.name(s) + ":");
+        g.DF(s);
 
-        System.out.println("\n\nBreadth First Search starting from vertex " + g.toChar(startingVertex) + ":");
-        g.breadthFirst(startingVertex);
+        System.out.println("\n\nBreadth First Search starting from vertex " + g.name(s) + ":");
+        g.breadthFirst(s);
 
-        System.out.println("\n\nPrim's Minimum spanning tree beginning from vertex " + g.toChar(startingVertex) + ":");
-        g.MST_Prim(startingVertex);
+        System.out.println("\n\nPrim's Minimum spanning tree beginning from vertex " + g.name(s) + ":");
+        g.MST_Prim(s, heap.monotone() ? VertexQueue.Kind.BINARY : heap);
         g.showMST();
 
-        System.out.println("\nDijkstra's SPT beginning from vertex " + g.toChar(startingVertex) + ":");
-        g.SPT_Dijkstra(startingVertex);
+        System.out.println("\nDijkstra's SPT beginning from vertex " + g.name(s) + ":");
+        g.SPT_Dijkstra(s, heap);
+        if (Metrics.ENABLED)
+            System.err.println(Metrics.snapshot());
     }
 }
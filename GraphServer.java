@@ -0,0 +1,311 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// long running query server over one graph loaded once. the graph is only
+// ever read, so every connection shares it, and each connection borrows a
+// QueryWorkspace from the graph's pool so queries allocate nothing. one line
+// per request and one line per reply, vertices are numbers:
+//
+//   DIST s t    OK d              shortest distance, -1 if unreachable
+//   PATH s t    OK d v1 .. vk     distance and the path s .. t
+//   SPT s       OK d1 .. dV       every distance from s
+//   MST s       OK w              MST weight of the component of s
+//   LEVEL s t   OK h              BFS hop count, -1 if unreachable
+//   STATS       OK ...            latency percentiles per command
+//   QUIT                          closes the connection
+//
+// anything else gets "ERR reason". requests can be pipelined: replies are
+// buffered and only flushed once no more input is waiting, so a client
+// sending a thousand lines gets its replies back in a few writes.
+// connections run on virtual threads where the JDK has them (looked up
+// reflectively, this tree targets 17), else on a cached pool of platform threads
+class GraphServer implements AutoCloseable {
+    enum Command { DIST, PATH, SPT, MST, LEVEL }
+
+    private final Graph g;
+    private final int V;
+    private final ServerSocket socket;
+    private final ExecutorService connections;
+    private final Latency[] latency = new Latency[Command.values().length];
+    private volatile boolean closed;
+
+    public final boolean virtualThreads;
+
+    public GraphServer(Graph _g, int port) throws IOException {
+        g = _g;
+        V = g.vertices();
+        if (g.minWeight() < 0)
+            throw new IllegalArgumentException("the server answers Dijkstra queries, weights must be non-negative");
+        for (int i = 0; i < latency.length; ++i)
+            latency[i] = new Latency();
+        ExecutorService vt = virtualThreadExecutor();
+        virtualThreads = vt != null;
+        connections = vt != null ? vt : Executors.newCachedThreadPool(r -> {
+            Thread th = new Thread(r, "graph-connection");
+            th.setDaemon(true);
+            return th;
+        });
+        socket = new ServerSocket(port, 1024, InetAddress.getLoopbackAddress());
+    }
+
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+
+    public int port() {
+        return socket.getLocalPort();
+    }
+
+    // accept connections on a thread of its own until close()
+    public GraphServer start() {
+        Thread acceptor = new Thread(this::acceptLoop, "graph-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return this;
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket s = socket.accept();
+                s.setTcpNoDelay(true);
+                connections.execute(() -> serve(s));
+            } catch (IOException ex) {
+                if (!closed)
+                    System.err.println("accept failed: " + ex.getMessage());
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        closed = true;
+        socket.close();
+        connections.shutdownNow();
+        try {
+            connections.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void serve(Socket s) {
+        QueryWorkspace ws = g.workspace();
+        Connection c = new Connection(ws);
+        try (Socket sock = s;
+             BufferedReader in = new BufferedReader(new InputStreamReader(sock.getInputStream(), StandardCharsets.US_ASCII), 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(sock.getOutputStream(), StandardCharsets.US_ASCII), 1 << 16)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.trim().equalsIgnoreCase("QUIT"))
+                    break;
+                out.append(c.answer(line)).append('\n');
+                if (!in.ready())
+                    out.flush();
+            }
+        } catch (SocketException ex) {
+            // the client went away
+        } catch (IOException ex) {
+            System.err.println("connection failed: " + ex.getMessage());
+        } finally {
+            g.release(ws);
+        }
+    }
+
+    // per connection state, the reply is built in one reused buffer
+    private class Connection {
+        final QueryWorkspace ws;
+        final StringBuilder reply = new StringBuilder();
+        final int[] path = new int[V];
+        final int[] args = new int[2];
+
+        Connection(QueryWorkspace _ws) {
+            ws = _ws;
+        }
+
+        CharSequence answer(String line) {
+            long begin = System.nanoTime();
+            reply.setLength(0);
+            int at = skip(line, 0), end = word(line, at);
+            String name = line.substring(at, end);
+            if (name.equalsIgnoreCase("STATS"))
+                return reply.append("OK ").append(stats());
+
+            Command cmd;
+            try {
+                cmd = Command.valueOf(name.toUpperCase());
+            } catch (IllegalArgumentException ex) {
+                return reply.append("ERR unknown command ").append(name);
+            }
+            int want = cmd == Command.SPT || cmd == Command.MST ? 1 : 2;
+            for (int i = 0; i <= want; ++i) {
+                at = skip(line, end);
+                end = word(line, at);
+                if (i == want) {
+                    if (at < line.length())
+                        return reply.append("ERR ").append(cmd).append(" takes ").append(want).append(want == 1 ? " vertex" : " vertices");
+                    break;
+                }
+                if (at == end)
+                    return reply.append("ERR ").append(cmd).append(" takes ").append(want).append(want == 1 ? " vertex" : " vertices");
+                args[i] = vertex(line, at, end);
+                if (args[i] == 0)
+                    return reply.append("ERR vertex ").append(line, at, end).append(" is not in 1..").append(V);
+            }
+
+            int s = args[0], t = args[1];
+            reply.append("OK");
+            switch (cmd) {
+                case DIST:
+                    reply.append(' ').append(finite(ws.distance(s, t)));
+                    break;
+                case PATH:
+                    reply.append(' ').append(finite(ws.distance(s, t)));
+                    for (int i = 0, n = ws.path(t, path); i < n; ++i)
+                        reply.append(' ').append(path[i]);
+                    break;
+                case SPT:
+                    ws.spt(s);
+                    for (int v = 1; v <= V; ++v)
+                        reply.append(' ').append(finite(ws.dist(v)));
+                    break;
+                case MST:
+                    reply.append(' ').append(ws.mstWeight(s));
+                    break;
+                case LEVEL:
+                    reply.append(' ').append(ws.hops(s, t));
+                    break;
+            }
+            latency[cmd.ordinal()].record(System.nanoTime() - begin);
+            return reply;
+        }
+    }
+
+    private static int skip(String line, int i) {
+        while (i < line.length() && Character.isWhitespace(line.charAt(i)))
+            ++i;
+        return i;
+    }
+
+    private static int word(String line, int i) {
+        while (i < line.length() && !Character.isWhitespace(line.charAt(i)))
+            ++i;
+        return i;
+    }
+
+    // the vertex written in line[from, to), 0 unless it is a number in 1..V
+    private int vertex(String line, int from, int to) {
+        long v = 0;
+        for (int i = from; i < to; ++i) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9' || (v = v * 10 + (c - '0')) > V)
+                return 0;
+        }
+        return (int) v;
+    }
+
+    private static long finite(int d) {
+        return d == Integer.MAX_VALUE ? -1 : d;
+    }
+
+    // count and p50 / p99 / p99.9 / max service time per command
+    public String stats() {
+        StringBuilder sb = new StringBuilder();
+        for (Command cmd : Command.values()) {
+            Latency l = latency[cmd.ordinal()];
+            long n = l.count();
+            if (n == 0)
+                continue;
+            if (sb.length() > 0)
+                sb.append(", ");
+            sb.append(String.format("%s n=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", cmd, n,
+                    l.percentile(0.5) / 1e3, l.percentile(0.99) / 1e3, l.percentile(0.999) / 1e3, l.max() / 1e3));
+        }
+        return sb.length() == 0 ? "no queries yet" : sb.toString();
+    }
+
+    // log-linear histogram of nanoseconds: exact below 32, then 16 buckets per
+    // power of two, so a percentile is within about 6% of the true value
+    static final class Latency {
+        private static final int BUCKETS = 32 + 59 * 16;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong top = new AtomicLong();
+
+        void record(long nanos) {
+            long v = Math.max(0, nanos);
+            counts.incrementAndGet(bucket(v));
+            long m = top.get();
+            while (v > m && !top.compareAndSet(m, v))
+                m = top.get();
+        }
+
+        static int bucket(long v) {
+            if (v < 32)
+                return (int) v;
+            int e = 63 - Long.numberOfLeadingZeros(v);
+            return 32 + (e - 5) * 16 + (int) ((v >>> (e - 4)) & 15);
+        }
+
+        // smallest value that lands in bucket i
+        static long lowest(int i) {
+            if (i < 32)
+                return i;
+            int e = (i - 32) / 16 + 5;
+            return (16L + (i - 32) % 16) << (e - 4);
+        }
+
+        long count() {
+            long n = 0;
+            for (int i = 0; i < BUCKETS; ++i)
+                n += counts.get(i);
+            return n;
+        }
+
+        long max() {
+            return top.get();
+        }
+
+        // the value below which a fraction p of the samples fall, mid bucket
+        long percentile(double p) {
+            long n = count(), rank = (long) Math.ceil(p * n), seen = 0;
+            for (int i = 0; i < BUCKETS; ++i) {
+                seen += counts.get(i);
+                if (seen >= rank && seen > 0)
+                    return Math.min(max(), i < 32 ? i : (lowest(i) + lowest(i + 1)) / 2);
+            }
+            return max();
+        }
+    }
+
+    // e.g. "java GraphServer wGraph1.txt 7474", then "printf 'DIST 1 5\n' | nc localhost 7474"
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("usage: java GraphServer <edge file> [port]");
+            System.exit(1);
+        }
+        Graph g = new Graph(args[0], Graph.Storage.CSR);
+        System.err.println(g.loadReport());
+        GraphServer server = new GraphServer(g, args.length > 1 ? Integer.parseInt(args[1]) : 7474).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.println(server.stats())));
+        System.out.println("Serving " + args[0] + " (" + g.vertices() + " vertices) on port " + server.port()
+                + (server.virtualThreads ? " with virtual threads" : " with platform threads"));
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,144 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+// binary snapshot of a graph in CSR form so it can be opened without parsing.
+//
+// layout, little endian:
+//   int magic 'GSNP', int version, int V, int E, long crc32 of the three arrays,
+//   int minWeight, int maxWeight (a reserved zero long in version 1)
+//   int offsets[V + 2], int targets[2E], int weights[2E]
+class GraphSnapshot {
+    public static final int MAGIC = 0x504E5347; // "GSNP" read little endian
+    public static final int VERSION = 2;        // 1 had no weight range, still readable
+    public static final int HEADER = 32;        // header size in bytes
+
+    // convert a text edge file into a snapshot
+    public static void convert(String graphFile, String snapshotFile) throws IOException {
+        EdgeFileParser edges = EdgeFileParser.parse(graphFile);
+        write(CsrAdjacency.build(edges.V, edges.E, edges.from, edges.to, edges.wgt), snapshotFile);
+    }
+
+    public static void write(CsrAdjacency csr, String snapshotFile) throws IOException {
+        int V = csr.vertices();
+        int E = csr.targets.length / 2;
+        int minWeight = 0, maxWeight = 0;
+        if (csr.weights.length > 0) {
+            minWeight = Integer.MAX_VALUE;
+            maxWeight = Integer.MIN_VALUE;
+            for (int w : csr.weights) {
+                minWeight = Math.min(minWeight, w);
+                maxWeight = Math.max(maxWeight, w);
+            }
+        }
+        CRC32 crc = new CRC32();
+
+        try (FileChannel ch = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // header goes in last once the checksum is known
+            ch.position(HEADER);
+            writeInts(ch, csr.offsets, crc);
+            writeInts(ch, csr.targets, crc);
+            writeInts(ch, csr.weights, crc);
+
+            ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(MAGIC).putInt(VERSION).putInt(V).putInt(E).putLong(crc.getValue()).putInt(minWeight).putInt(maxWeight);
+            head.flip();
+            ch.write(head, 0);
+        }
+    }
+
+    private static void writeInts(FileChannel ch, int[] a, CRC32 crc) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        int i = 0;
+        while (i < a.length) {
+            buf.clear();
+            while (i < a.length && buf.remaining() >= 4)
+                buf.putInt(a[i++]);
+            buf.flip();
+            crc.update(buf.duplicate());
+            while (buf.hasRemaining())
+                ch.write(buf);
+        }
+    }
+
+    // map a snapshot, the arrays are used in place and never copied onto the heap
+    public static MappedAdjacency open(String snapshotFile) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(snapshotFile), StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+            while (head.hasRemaining() && ch.read(head) >= 0)
+                ;
+            head.flip();
+            if (head.remaining() < HEADER || head.getInt() != MAGIC)
+                throw new IOException(snapshotFile + " is not a graph snapshot");
+            int version = head.getInt();
+            if (version != VERSION && version != 1)
+                throw new IOException(snapshotFile + " has snapshot version " + version + ", expected " + VERSION);
+            int V = head.getInt();
+            int E = head.getInt();
+            long crc = head.getLong();
+            int minWeight = head.getInt();
+            int maxWeight = head.getInt();
+
+            long pos = HEADER;
+            long expected = HEADER + 4L * (V + 2) + 8L * 2 * E;
+            if (ch.size() != expected)
+                throw new IOException(snapshotFile + " is " + ch.size() + " bytes, header says " + expected);
+
+            // the mappings stay valid after the channel is closed
+            IntBuffer offsets = map(ch, pos, V + 2);
+            pos += 4L * (V + 2);
+            IntBuffer targets = map(ch, pos, 2L * E);
+            pos += 8L * E;
+            IntBuffer weights = map(ch, pos, 2L * E);
+            if (version == 1) {
+                // no range in the header, this pages in every weight once
+                minWeight = E == 0 ? 0 : Integer.MAX_VALUE;
+                maxWeight = E == 0 ? 0 : Integer.MIN_VALUE;
+                for (int i = 0; i < weights.limit(); ++i) {
+                    minWeight = Math.min(minWeight, weights.get(i));
+                    maxWeight = Math.max(maxWeight, weights.get(i));
+                }
+            }
+            return new MappedAdjacency(V, E, crc, minWeight, maxWeight, offsets, targets, weights);
+        }
+    }
+
+    private static IntBuffer map(FileChannel ch, long pos, long count) throws IOException {
+        if (4 * count > Integer.MAX_VALUE)
+            throw new IOException("array of " + count + " ints is too large for a single mapping");
+        return ch.map(FileChannel.MapMode.READ_ONLY, pos, 4 * count).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+
+    // recompute the checksum of a mapped snapshot, this touches every page
+    public static boolean verify(MappedAdjacency m) {
+        CRC32 crc = new CRC32();
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (IntBuffer a : new IntBuffer[] { m.offsets, m.targets, m.weights }) {
+            for (int i = 0; i < a.limit(); ) {
+                buf.clear();
+                while (i < a.limit() && buf.remaining() >= 4)
+                    buf.putInt(a.get(i++));
+                buf.flip();
+                crc.update(buf);
+            }
+        }
+        return crc.getValue() == m.checksum;
+    }
+
+    // converter, e.g. "java GraphSnapshot wGraph1.txt wGraph1.gsnap"
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: java GraphSnapshot <edge file> <snapshot file>");
+            System.exit(1);
+        }
+        long begin = System.nanoTime();
+        convert(args[0], args[1]);
+        System.out.printf("Wrote %s in %.1f ms%n", args[1], (System.nanoTime() - begin) / 1e6);
+    }
+}
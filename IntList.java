@@ -0,0 +1,21 @@
+import java.util.Arrays;
+
+// growable list of ints, the fields are read directly by the callers so a
+// frontier or a work stack costs no boxing and no accessor calls
+class IntList {
+    int[] a = new int[16];
+    int size;
+
+    void add(int x) {
+        if (size == a.length)
+            a = Arrays.copyOf(a, size * 2);
+        a[size++] = x;
+    }
+
+    void addAll(IntList o) {
+        if (size + o.size > a.length)
+            a = Arrays.copyOf(a, Math.max(size + o.size, a.length * 2));
+        System.arraycopy(o.a, 0, a, size, o.size);
+        size += o.size;
+    }
+}
@@ -29,13 +29,14 @@ class Edge {
 }
 
 // class representing a heap data struct
-class Heap {
+class EdgeHeap {
     private int[] heapArray;
     int heapSize, maxSize;
     Edge[] edgeArray;
+    long siftDowns; // calls, counted with Metrics.ENABLED
 
     // constructor for heap
-    public Heap(int _maxSize, Edge[] _edgeArray) {
+    public EdgeHeap(int _maxSize, Edge[] _edgeArray) {
         int i;
         maxSize = heapSize = _maxSize;
         heapArray = new int[heapSize + 1];
@@ -54,6 +55,8 @@ class Heap {
     private void siftDown(int k) {
         int e, j;
 
+        if (Metrics.ENABLED)
+            ++siftDowns;
         e = heapArray[k];
         while (k <= heapSize / 2) {
             j = 2 * k;
@@ -80,116 +83,58 @@ class Heap {
     }
 }
 
-// class representing union-find sets for Kruskal's algorithm
-class UnionFindSets {
-    private int[] parent;
-    private int size;
-
-    // constructor for UnionFindSets
-    public UnionFindSets(int numVertices) {
-        size = numVertices;
-        parent = new int[numVertices + 1];
-
-        // Initialising each vertex as a separate set
-        for (int i = 1; i <= size; ++i) {
-            parent[i] = i;
-        }
-    }
-
-    // finding the set to which a vertex belongs
-    public int findSet(int vertex) {
-        if (vertex != parent[vertex]) {
-            
-            vertex = findSet(parent[vertex]); // recursively find the parent of the set
-        }
-        return vertex;
-    }
-
-    // perform union operation
-    public void union(int set1, int set2) {
-        parent[findSet(set1)] = findSet(set2); // make one set a child of the other
-    }
-
-    public void showTrees() {
-        int i;
-        for (i = 1; i <= size; ++i)
-            System.out.print(toChar(i) + "->" + toChar(parent[i]) + "  ");
-        System.out.print("\n");
-    }
-
-    // display the sets formed by the union-find sets
-    public void showSets() {
-        int vertex, root;
-        int[] shown = new int[size + 1];
-        for (vertex = 1; vertex <= size; ++vertex) {
-            root = findSet(vertex);
-            if (shown[root] != 1) {
-                showSet(root);
-                shown[root] = 1;
-            }
-        }
-        System.out.print("\n");
-    }
-
-    // helper method to display a single set
-    private void showSet(int root) {
-        int vertex;
-        System.out.print("Set: {");
-        for (vertex = 1; vertex <= size; ++vertex)
-            if (findSet(vertex) == root)
-                System.out.print(toChar(vertex) + " ");
-        System.out.print("}  ");
-    }
-
-    // convert vertex into char for pretty printing
-    private char toChar(int vertex) {
-        return (char) (vertex + 64); // assuming vertices are represented as integers starting from 1
-    }
-}
-
 // class representing the graph and doing Kruskal's algorithm
-class Graph {
+class KruskalGraph {
     private int numVertices, numEdges;
-    private Edge[] edges;
+    private int[] from, to, wgt; // edge e as parsed, 0 <= e < numEdges
+    private Edge[] edges;      // the same edges as objects, built when first needed
     private Edge[] mst;
     private int totalWeight; // store the total weight of the MST
+    private String loadReport; // summary of how the file was parsed
+    private AlgorithmListener listener; // trace hook, silent by default
 
     // constructor for the graph
-    public Graph(String graphFile) throws IOException {
-        int start, end;
-        int weight, edgeIndex;
+    public KruskalGraph(String graphFile) throws IOException {
+        this(graphFile, AlgorithmListener.NONE);
+    }
 
-        // Read the graph from a text file
-        FileReader fr = new FileReader(graphFile);
-        BufferedReader reader = new BufferedReader(fr);
+    // the listener hears about every edge read and every step of findMST
+    public KruskalGraph(String graphFile, AlgorithmListener _listener) throws IOException {
+        int edgeIndex;
+        listener = _listener;
+        long begin = System.nanoTime();
 
-        String splits = " +";  // multiple whitespace as delimiter
-        String line = reader.readLine();
-        String[] parts = line.split(splits);
+        // memory-mapped parallel parse of the text file
+        EdgeFileParser parsed = EdgeFileParser.parse(graphFile);
+        loadReport = parsed.report();
 
         // extract number of vertices and edges from the first line
-        numVertices = Integer.parseInt(parts[0]);
-        numEdges = Integer.parseInt(parts[1]);
-
-        // edge array
-        edges = new Edge[numEdges + 1];
+        numVertices = parsed.V;
+        numEdges = parsed.E;
 
-        // reading the edges from the file
-        for (edgeIndex = 1; edgeIndex <= numEdges; ++edgeIndex) {
-            line = reader.readLine();
-            parts = line.split(splits);
-            start = Integer.parseInt(parts[0]);
-            end = Integer.parseInt(parts[1]);
-            weight = Integer.parseInt(parts[2]);
+        // keeping the primitive arrays, Edge objects are only made when needed
+        from = parsed.from;
+        to = parsed.to;
+        wgt = parsed.wgt;
 
-            // display the edge being read
-            System.out.println("Edge " + toChar(start) + "--(" + weight + ")--" + toChar(end));
+        for (edgeIndex = 0; edgeIndex < numEdges; ++edgeIndex)
+            listener.edgeLoaded(from[edgeIndex], to[edgeIndex], wgt[edgeIndex]);
 
-            // create an Edge object and add it to the edge array
-            edges[edgeIndex] = new Edge(start, end, weight);
+        totalWeight = 0; // initialising total weight to 0
+        if (Metrics.ENABLED) {
+            Metrics.phase(Metrics.Area.LOAD, Metrics.Phase.PARSE, begin);
+            Metrics.loaded(graphFile, "EDGES", numVertices, numEdges, begin);
         }
+    }
 
-        totalWeight = 0; // initialising total weight to 0
+    // edge array, edges[1..numEdges], for the heap based algorithms
+    private Edge[] edges() {
+        if (edges == null) {
+            edges = new Edge[numEdges + 1];
+            for (int e = 1; e <= numEdges; ++e)
+                edges[e] = new Edge(from[e - 1], to[e - 1], wgt[e - 1]);
+        }
+        return edges;
     }
 
     // method to find the minimum spanning tree
@@ -197,15 +142,20 @@ class Graph {
         int edgeIndex, mstIndex = 0;
         Edge currentEdge;
         int uSet, vSet;
+        Metrics.Run run = Metrics.ENABLED ? Metrics.begin(Metrics.Area.KRUSKAL, 0) : null;
         UnionFindSets partition = new UnionFindSets(numVertices);
 
         // create edge array to store MST - initially it has no edges.
         mst = new Edge[numVertices - 1];
 
         // priority queue for indices of array of edges
-        Heap h = new Heap(numEdges, edges);
+        Edge[] edges = edges();
+        EdgeHeap h = new EdgeHeap(numEdges, edges);
 
-        System.out.println("\nSteps of Kruskal:" );
+        AlgorithmListener trace = listener;
+        trace.started(AlgorithmListener.Algorithm.KRUSKAL, 0);
+        if (Metrics.ENABLED)
+            run.phase(Metrics.Phase.HEAP_BUILD);
 
         // create partition of singleton sets for the vertices
         while (mstIndex < numVertices - 1) {
@@ -213,16 +163,34 @@ class Graph {
             currentEdge = edges[edgeIndex];
             uSet = partition.findSet(currentEdge.start);
             vSet = partition.findSet(currentEdge.end);
+            if (Metrics.ENABLED) {
+                ++run.heapRemoves;
+                ++run.edgesScanned;
+                run.finds += 2;
+            }
 
             if (uSet != vSet) {
                 // accept the edge
                 mst[mstIndex++] = currentEdge;
                 partition.union(uSet, vSet);
+                if (Metrics.ENABLED) {
+                    // union finds both roots again
+                    ++run.unions;
+                    run.finds += 2;
+                }
+                trace.edgeAccepted(AlgorithmListener.Algorithm.KRUSKAL, currentEdge.start, currentEdge.end, currentEdge.weight);
+            } else {
+                trace.edgeRejected(AlgorithmListener.Algorithm.KRUSKAL, currentEdge.start, currentEdge.end, currentEdge.weight);
             }
 
-            // print the sets formed after processing each edge
-            System.out.println("\n" + toChar(currentEdge.start) + "-" + currentEdge.weight + "-" + toChar(currentEdge.end));
-            partition.showSets();
+            // report the sets formed after processing each edge
+            trace.setsChanged(partition);
+        }
+
+        if (Metrics.ENABLED) {
+            run.siftDowns = h.siftDowns;
+            run.phase(Metrics.Phase.MAIN_LOOP);
+            run.end();
         }
 
         // calculate total weight of the MST
@@ -233,31 +201,86 @@ class Graph {
         return mst;
     }
 
-    // convert vertex into char for pretty printing
-    private char toChar(int vertex) {
-        return (char) (vertex + 64); // assuming vertices are represented as integers starting from 1
+    // the same tree found by parallel Boruvka rounds
+    public Edge[] findMSTBoruvka() {
+        Edge[] edges = edges();
+        int[] chosen = new BoruvkaMST(numVertices, edges).run();
+
+        mst = new Edge[chosen.length];
+        totalWeight = 0;
+        for (int e = 0; e < chosen.length; ++e) {
+            mst[e] = edges[chosen[e]];
+            totalWeight += mst[e].weight;
+        }
+        return mst;
+    }
+
+    // the same tree by Filter-Kruskal over packed primitive edges
+    public Edge[] findMSTFilter() {
+        int[] chosen = new FilterKruskal(numVertices, numEdges, from, to, wgt).run();
+
+        mst = new Edge[chosen.length];
+        totalWeight = 0;
+        for (int e = 0; e < chosen.length; ++e) {
+            mst[e] = new Edge(from[chosen[e]], to[chosen[e]], wgt[chosen[e]]);
+            totalWeight += mst[e].weight;
+        }
+        return mst;
+    }
+
+    // a dynamic forest seeded with the Filter-Kruskal tree, edge ids are the file order
+    public DynamicMST dynamicMST() {
+        int[] chosen = new FilterKruskal(numVertices, numEdges, from, to, wgt).run();
+        return new DynamicMST(numVertices, numEdges, from, to, wgt, chosen);
+    }
+
+    // throughput of the file load
+    public String loadReport() {
+        return loadReport;
     }
 
     // display the minimum spanning tree
     public void showMST() {
+        showMST(mst, totalWeight);
+    }
+
+    public static void showMST(Edge[] mst, long totalWeight) {
         System.out.print("\nMinimum spanning tree from following edges:\n");
-        for (int e = 0; e < numVertices - 1; ++e) {
+        for (int e = 0; e < mst.length; ++e) {
             mst[e].show();
         }
         System.out.println("\nWeight of MST: " + totalWeight);
     }
 }
 
-// test code
+// test code, "java KruskalTrees boruvka" or "java KruskalTrees filter" picks another engine,
+// "java KruskalTrees external 64" streams the file through ExternalKruskal with a 64MB budget
 class KruskalTrees {
     public static void main(String[] args) throws IOException {
         String fileName = "wGraph1.txt";
 
+        if (args.length > 0 && args[0].equalsIgnoreCase("external")) {
+            long budget = (args.length > 1 ? Long.parseLong(args[1]) : 64) << 20;
+            ExternalKruskal external = new ExternalKruskal(fileName, budget);
+            Edge[] mst = external.run();
+            System.err.println("External Kruskal wrote " + external.runs + " runs, " + external.bytesSpilled + " bytes");
+            KruskalGraph.showMST(mst, external.totalWeight);
+            return;
+        }
+
         // create a graph object
-        Graph graph = new Graph(fileName);
+        KruskalGraph graph = new KruskalGraph(fileName, new ConsoleTrace());
+        System.err.println(graph.loadReport());
 
-        graph.findMST();
+        if (args.length > 0 && args[0].equalsIgnoreCase("boruvka"))
+            graph.findMSTBoruvka();
+        else if (args.length > 0 && args[0].equalsIgnoreCase("filter"))
+            graph.findMSTFilter();
+        else
+            graph.findMST();
 
         graph.showMST();
+        if (Metrics.ENABLED)
+            System.err.println(Metrics.snapshot());
     }
 }
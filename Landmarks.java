@@ -0,0 +1,42 @@
+import java.util.Arrays;
+
+// ALT lower bounds: exact distances from a few landmark vertices give, by the
+// triangle inequality, |d(L, t) - d(L, v)| <= d(v, t) for every landmark L.
+// landmarks are picked greedily, each one as far as possible from those
+// already chosen, with one shortest path tree run per landmark
+class Landmarks implements PointToPoint.Heuristic {
+    private final int[][] dist; // dist[i][v] = distance from landmark i to v
+
+    public Landmarks(Graph g, int count, int first) {
+        int V = g.vertices();
+        int[] parent = new int[V + 1];
+        int[] nearest = new int[V + 1]; // distance to the closest landmark so far
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        dist = new int[count][V + 1];
+
+        int next = first;
+        for (int i = 0; i < count; ++i) {
+            g.shortestPaths(next, dist[i], parent, VertexQueue.Kind.BINARY);
+
+            // the next landmark is the reachable vertex furthest from all of them
+            int far = next;
+            for (int v = 1; v <= V; ++v) {
+                if (dist[i][v] < nearest[v])
+                    nearest[v] = dist[i][v];
+                if (nearest[v] != Integer.MAX_VALUE && nearest[v] > nearest[far])
+                    far = v;
+            }
+            next = far;
+        }
+    }
+
+    public int estimate(int v, int target) {
+        int best = 0;
+        for (int[] d : dist) {
+            if (d[v] == Integer.MAX_VALUE || d[target] == Integer.MAX_VALUE)
+                continue;
+            best = Math.max(best, Math.abs(d[target] - d[v]));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,46 @@
+import java.nio.IntBuffer;
+
+// CSR adjacency read straight out of a mapped snapshot
+class MappedAdjacency implements Adjacency {
+    public final int V, E;
+    public final long checksum;
+    public final int minWeight, maxWeight; // from the header, no page has to be read
+    public final IntBuffer offsets;
+    public final IntBuffer targets;
+    public final IntBuffer weights;
+
+    public MappedAdjacency(int _V, int _E, long _checksum, int _minWeight, int _maxWeight,
+                           IntBuffer _offsets, IntBuffer _targets, IntBuffer _weights) {
+        V = _V;
+        E = _E;
+        checksum = _checksum;
+        minWeight = _minWeight;
+        maxWeight = _maxWeight;
+        offsets = _offsets;
+        targets = _targets;
+        weights = _weights;
+    }
+
+    public int degree(int v) {
+        return offsets.get(v + 1) - offsets.get(v);
+    }
+
+    public EdgeCursor cursor() {
+        return new EdgeCursor() {
+            private int pos, end;
+
+            public void start(int v) {
+                pos = offsets.get(v);
+                end = offsets.get(v + 1);
+            }
+
+            public boolean next() {
+                if (pos == end)
+                    return false;
+                vert = targets.get(pos);
+                wgt = weights.get(pos++);
+                return true;
+            }
+        };
+    }
+}
@@ -0,0 +1,230 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// counters, phase timers and JFR events for the loads and the algorithm runs.
+// everything hangs off ENABLED, a static final read once from
+// -Dgraph.metrics=true: when it is false the JIT folds every
+// "if (Metrics.ENABLED)" away and the algorithms run as before. when it is
+// true a run counts into plain fields of its own Run and publishes them to the
+// striped counters once at the end, so the loops never touch shared state.
+// snapshot() dumps the lot as JSON. the JFR events show up in any recording,
+// e.g. -XX:StartFlightRecording with the graph.Load and graph.AlgorithmRun events
+class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("graph.metrics");
+
+    // what is being measured, a graph load or one of the algorithms
+    enum Area { LOAD, PRIM, DIJKSTRA, KRUSKAL }
+
+    enum Counter {
+        RUNS, EDGES_LOADED, HEAP_INSERT, HEAP_REMOVE, HEAP_DECREASE_KEY, HEAP_SIFT_UP, HEAP_SIFT_DOWN,
+        EDGES_SCANNED, EDGES_RELAXED, UNION_FIND_FIND, UNION_FIND_UNION
+    }
+
+    // PARSE, REORDER and BUILD for loads, the rest for the algorithms
+    enum Phase { PARSE, REORDER, BUILD, INIT, HEAP_BUILD, MAIN_LOOP }
+
+    private static final LongAdder[][] counters = new LongAdder[Area.values().length][Counter.values().length];
+    private static final Timer[][] timers = new Timer[Area.values().length][Phase.values().length];
+
+    static {
+        for (Area a : Area.values()) {
+            for (Counter c : Counter.values())
+                counters[a.ordinal()][c.ordinal()] = new LongAdder();
+            for (Phase p : Phase.values())
+                timers[a.ordinal()][p.ordinal()] = new Timer();
+        }
+    }
+
+    static final class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long elapsed) {
+            count.increment();
+            nanos.add(elapsed);
+            max.accumulate(elapsed);
+        }
+    }
+
+    public static long count(Area area, Counter counter) {
+        return counters[area.ordinal()][counter.ordinal()].sum();
+    }
+
+    public static long phaseNanos(Area area, Phase phase) {
+        return timers[area.ordinal()][phase.ordinal()].nanos.sum();
+    }
+
+    public static void reset() {
+        for (Area a : Area.values()) {
+            for (Counter c : Counter.values())
+                counters[a.ordinal()][c.ordinal()].reset();
+            for (Phase p : Phase.values()) {
+                Timer t = timers[a.ordinal()][p.ordinal()];
+                t.count.reset();
+                t.nanos.reset();
+                t.max.reset();
+            }
+        }
+    }
+
+    // one load or algorithm run. the counting fields are bumped by the code
+    // being measured, phase() closes the phase that just ran and end()
+    // publishes everything. a Run belongs to the thread doing the work
+    static final class Run {
+        final Area area;
+        final RunEvent event;
+        long mark;
+        public long heapInserts, heapRemoves, decreaseKeys, siftUps, siftDowns;
+        public long edgesScanned, edgesRelaxed, finds, unions;
+
+        Run(Area _area, int source) {
+            area = _area;
+            event = new RunEvent();
+            event.algorithm = area.name();
+            event.source = source;
+            event.begin();
+            mark = System.nanoTime();
+        }
+
+        // time since the last mark goes to phase p
+        public void phase(Phase p) {
+            long now = System.nanoTime();
+            timers[area.ordinal()][p.ordinal()].record(now - mark);
+            mark = now;
+        }
+
+        // the sift counts kept by a queue that knows them
+        public void sifts(VertexQueue q) {
+            siftUps += q.siftUps();
+            siftDowns += q.siftDowns();
+        }
+
+        public void end() {
+            LongAdder[] c = counters[area.ordinal()];
+            c[Counter.RUNS.ordinal()].increment();
+            c[Counter.HEAP_INSERT.ordinal()].add(heapInserts);
+            c[Counter.HEAP_REMOVE.ordinal()].add(heapRemoves);
+            c[Counter.HEAP_DECREASE_KEY.ordinal()].add(decreaseKeys);
+            c[Counter.HEAP_SIFT_UP.ordinal()].add(siftUps);
+            c[Counter.HEAP_SIFT_DOWN.ordinal()].add(siftDowns);
+            c[Counter.EDGES_SCANNED.ordinal()].add(edgesScanned);
+            c[Counter.EDGES_RELAXED.ordinal()].add(edgesRelaxed);
+            c[Counter.UNION_FIND_FIND.ordinal()].add(finds);
+            c[Counter.UNION_FIND_UNION.ordinal()].add(unions);
+            event.end();
+            if (event.shouldCommit()) {
+                event.heapInserts = heapInserts;
+                event.heapRemoves = heapRemoves;
+                event.decreaseKeys = decreaseKeys;
+                event.edgesScanned = edgesScanned;
+                event.edgesRelaxed = edgesRelaxed;
+                event.unions = unions;
+                event.commit();
+            }
+        }
+    }
+
+    public static Run begin(Area area, int source) {
+        return new Run(area, source);
+    }
+
+    // a finished load: counts and the JFR event, the phases were timed by the caller
+    public static void loaded(String file, String storage, int V, int E, long beginNanos) {
+        LongAdder[] c = counters[Area.LOAD.ordinal()];
+        c[Counter.RUNS.ordinal()].increment();
+        c[Counter.EDGES_LOADED.ordinal()].add(E);
+        LoadEvent event = new LoadEvent();
+        if (event.shouldCommit()) {
+            event.file = file;
+            event.storage = storage;
+            event.vertices = V;
+            event.edges = E;
+            event.millis = (System.nanoTime() - beginNanos) / 1e6;
+            event.commit();
+        }
+    }
+
+    // time from start to now into phase p of area, returns now for the next phase
+    public static long phase(Area area, Phase p, long start) {
+        long now = System.nanoTime();
+        timers[area.ordinal()][p.ordinal()].record(now - start);
+        return now;
+    }
+
+    // {"enabled":true,"LOAD":{"counters":{...},"phases":{"PARSE":{"count":1,"totalMs":..,"maxMs":..}}},...}
+    // areas, counters and phases that never saw anything are left out
+    public static String snapshot() {
+        StringBuilder sb = new StringBuilder("{\"enabled\":").append(ENABLED);
+        for (Area a : Area.values()) {
+            if (count(a, Counter.RUNS) == 0)
+                continue;
+            sb.append(",\"").append(a).append("\":{\"counters\":{");
+            boolean first = true;
+            for (Counter c : Counter.values()) {
+                long n = count(a, c);
+                if (n == 0)
+                    continue;
+                sb.append(first ? "" : ",").append('"').append(c).append("\":").append(n);
+                first = false;
+            }
+            sb.append("},\"phases\":{");
+            first = true;
+            for (Phase p : Phase.values()) {
+                Timer t = timers[a.ordinal()][p.ordinal()];
+                long n = t.count.sum();
+                if (n == 0)
+                    continue;
+                sb.append(first ? "" : ",").append('"').append(p).append("\":{\"count\":").append(n)
+                        .append(",\"totalMs\":").append(String.format("%.3f", t.nanos.sum() / 1e6))
+                        .append(",\"maxMs\":").append(String.format("%.3f", t.max.get() / 1e6)).append('}');
+                first = false;
+            }
+            sb.append("}}");
+        }
+        return sb.append('}').toString();
+    }
+
+    @Name("graph.Load")
+    @Label("Graph Load")
+    @Category("Graph")
+    static final class LoadEvent extends Event {
+        @Label("File")
+        String file;
+        @Label("Storage")
+        String storage;
+        @Label("Vertices")
+        int vertices;
+        @Label("Edges")
+        int edges;
+        @Label("Milliseconds")
+        double millis;
+    }
+
+    @Name("graph.AlgorithmRun")
+    @Label("Algorithm Run")
+    @Category("Graph")
+    static final class RunEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+        @Label("Source")
+        int source;
+        @Label("Heap Inserts")
+        long heapInserts;
+        @Label("Heap Removes")
+        long heapRemoves;
+        @Label("Decrease Keys")
+        long decreaseKeys;
+        @Label("Edges Scanned")
+        long edgesScanned;
+        @Label("Edges Relaxed")
+        long edgesRelaxed;
+        @Label("Unions")
+        long unions;
+    }
+}
@@ -0,0 +1,98 @@
+// pairing heap over vertices, decrease-key is a cut and a single link so it
+// costs O(1) amortised, which pays off when relaxations far outnumber removals.
+// the tree is kept in arrays: child is the leftmost child, sibling the next
+// child to the right and prev either the left sibling or, for a leftmost child, the parent
+class PairingHeap implements VertexQueue {
+    private final int[] child, sibling, prev;
+    private final boolean[] inHeap;
+    private final int[] dist;    // dist[v] = priority of v
+    private final int[] pairs;   // scratch for the two-pass merge in remove
+    private int root;            // 0 when empty
+
+    public PairingHeap(int maxSize, int[] _dist) {
+        child = new int[maxSize + 1];
+        sibling = new int[maxSize + 1];
+        prev = new int[maxSize + 1];
+        inHeap = new boolean[maxSize + 1];
+        pairs = new int[maxSize + 1];
+        dist = _dist;
+        root = 0;
+    }
+
+    public boolean isEmpty() {
+        return root == 0;
+    }
+
+    public boolean contains(int v) {
+        return inHeap[v];
+    }
+
+    public void insert(int v) {
+        child[v] = sibling[v] = prev[v] = 0;
+        inHeap[v] = true;
+        root = root == 0 ? v : link(root, v);
+    }
+
+    public void decreaseKey(int v) {
+        if (v == root)
+            return;
+
+        // cut the subtree of v out and link it back in with the root
+        int p = prev[v];
+        if (child[p] == v)
+            child[p] = sibling[v];
+        else
+            sibling[p] = sibling[v];
+        if (sibling[v] != 0)
+            prev[sibling[v]] = p;
+        sibling[v] = prev[v] = 0;
+        root = link(root, v);
+    }
+
+    public int remove() {
+        int v = root;
+        inHeap[v] = false;
+
+        // first pass links the children in pairs from left to right
+        int n = 0;
+        int c = child[v];
+        while (c != 0) {
+            int a = c;
+            int b = sibling[a];
+            if (b == 0) {
+                sibling[a] = prev[a] = 0;
+                pairs[n++] = a;
+                break;
+            }
+            c = sibling[b];
+            sibling[a] = prev[a] = sibling[b] = prev[b] = 0;
+            pairs[n++] = link(a, b);
+        }
+
+        // second pass folds the pairs together from right to left
+        root = n == 0 ? 0 : pairs[--n];
+        while (n > 0)
+            root = link(pairs[--n], root);
+        if (root != 0)
+            prev[root] = 0;
+
+        child[v] = 0;
+        return v;
+    }
+
+    // make the larger of two roots the leftmost child of the smaller, returns the new root
+    private int link(int a, int b) {
+        if (dist[b] < dist[a]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        sibling[b] = child[a];
+        if (child[a] != 0)
+            prev[child[a]] = b;
+        prev[b] = a;
+        child[a] = b;
+        sibling[a] = 0;
+        return a;
+    }
+}
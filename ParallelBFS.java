@@ -0,0 +1,230 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// level synchronous parallel breadth first search that switches direction.
+// a top-down step scans the edges of every frontier vertex and claims the
+// unvisited neighbours. a bottom-up step scans the unvisited vertices instead
+// and stops at the first neighbour found in the frontier, which is far cheaper
+// once the frontier holds a large share of the edges, as it does for a few
+// levels on small diameter graphs. so the parent is the lowest numbered
+// claimant for a vertex reached top-down but any frontier neighbour for one
+// reached bottom-up, the levels are the same either way. the frontier is an int list top-down and a
+// bitmap bottom-up. the switch follows Beamer et al: go bottom-up when the
+// frontier's edges exceed the unvisited edges / ALPHA, go back top-down when
+// the frontier falls under V / BETA vertices
+class ParallelBFS {
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+    private static final int LEAF = 256;  // frontier vertices, or bitmap words * 64, per task
+
+    private final Adjacency adj;
+    private final ForkJoinPool pool;
+    private final int V;
+
+    public int[] level;           // hops from the source, -1 if unreachable
+    public int[] parent;          // BFS tree, -1 for the source and unreachable vertices
+    public int depth;             // levels in the tree
+    public long edgesInspected;   // edges looked at by the last run
+    public int bottomUpSteps;     // levels expanded bottom-up by the last run
+
+    private AtomicIntegerArray claim; // parent while a top-down step races for a vertex
+    private long[] frontierBits;
+
+    public ParallelBFS(Graph g) {
+        this(g, ForkJoinPool.commonPool());
+    }
+
+    public ParallelBFS(Graph g, ForkJoinPool _pool) {
+        adj = g.adjacency();
+        pool = _pool;
+        V = g.vertices();
+    }
+
+    public ParallelBFS run(int s) {
+        level = new int[V + 1];
+        parent = new int[V + 1];
+        claim = new AtomicIntegerArray(V + 1);
+        for (int v = 0; v <= V; ++v) {
+            level[v] = -1;
+            parent[v] = -1;
+            claim.set(v, Integer.MAX_VALUE);
+        }
+        level[s] = 0;
+        depth = 0;
+        edgesInspected = 0;
+        bottomUpSteps = 0;
+
+        IntList frontier = new IntList();
+        frontier.add(s);
+        frontierBits = null;
+        long nf = 1;
+        long mf = adj.degree(s);
+        long mu = 0;
+        for (int v = 1; v <= V; ++v)
+            mu += adj.degree(v);
+        mu -= mf;
+        boolean bottomUp = false;
+
+        while (nf > 0) {
+            if (!bottomUp && mf > mu / ALPHA) {
+                frontierBits = toBits(frontier);
+                bottomUp = true;
+            } else if (bottomUp && nf < V / BETA) {
+                frontier = toList(frontierBits);
+                bottomUp = false;
+            }
+
+            long[] step;
+            if (bottomUp) {
+                long[] next = new long[words()];
+                step = pool.invoke(new BottomUp(next, 0, words()));
+                frontierBits = next;
+                ++bottomUpSteps;
+            } else {
+                TopDown task = new TopDown(frontier, 0, frontier.size);
+                frontier = pool.invoke(task);
+                // the claims are settled, every new vertex keeps its lowest numbered parent
+                step = new long[] { frontier.size, 0, task.inspected() };
+                for (int k = 0; k < frontier.size; ++k) {
+                    int u = frontier.a[k];
+                    parent[u] = claim.get(u);
+                    level[u] = depth + 1;
+                    step[1] += adj.degree(u);
+                }
+            }
+            nf = step[0];
+            mf = step[1];
+            mu -= mf;
+            edgesInspected += step[2];
+            if (nf > 0)
+                ++depth;
+        }
+        claim = null;
+        frontierBits = null;
+        return this;
+    }
+
+    private int words() {
+        return (V + 1 + 63) >>> 6;
+    }
+
+    private long[] toBits(IntList list) {
+        long[] bits = new long[words()];
+        for (int k = 0; k < list.size; ++k)
+            bits[list.a[k] >>> 6] |= 1L << list.a[k];
+        return bits;
+    }
+
+    private static IntList toList(long[] bits) {
+        IntList list = new IntList();
+        for (int w = 0; w < bits.length; ++w)
+            for (long b = bits[w]; b != 0; b &= b - 1)
+                list.add((w << 6) + Long.numberOfTrailingZeros(b));
+        return list;
+    }
+
+    // claims the unvisited neighbours of frontier[lo..hi), returns the vertices it claimed first
+    @SuppressWarnings("serial")
+    private class TopDown extends RecursiveTask<IntList> {
+        private final IntList frontier;
+        private final int lo, hi;
+        private long inspected;
+        private TopDown left, right;
+
+        TopDown(IntList _frontier, int _lo, int _hi) {
+            frontier = _frontier;
+            lo = _lo;
+            hi = _hi;
+        }
+
+        long inspected() {
+            return left == null ? inspected : left.inspected() + right.inspected();
+        }
+
+        protected IntList compute() {
+            if (hi - lo > LEAF) {
+                int mid = (lo + hi) >>> 1;
+                left = new TopDown(frontier, lo, mid);
+                right = new TopDown(frontier, mid, hi);
+                left.fork();
+                IntList r = right.compute();
+                IntList out = left.join();
+                out.addAll(r);
+                return out;
+            }
+
+            IntList out = new IntList();
+            EdgeCursor t = adj.cursor();
+            for (int k = lo; k < hi; ++k) {
+                int v = frontier.a[k];
+                t.start(v);
+                while (t.next()) {
+                    ++inspected;
+                    int u = t.vert;
+                    if (level[u] != -1)
+                        continue;
+                    // atomic min, whoever replaces the initial value adds u to the next frontier
+                    int old = claim.get(u);
+                    while (v < old) {
+                        if (claim.compareAndSet(u, old, v)) {
+                            if (old == Integer.MAX_VALUE)
+                                out.add(u);
+                            break;
+                        }
+                        old = claim.get(u);
+                    }
+                }
+            }
+            return out;
+        }
+    }
+
+    // every unvisited vertex in bitmap words [lo, hi) looks for a parent in the
+    // frontier. a task owns whole words of next, so no atomics are needed.
+    // returns { vertices found, their degree sum, edges inspected }
+    @SuppressWarnings("serial")
+    private class BottomUp extends RecursiveTask<long[]> {
+        private final long[] next;
+        private final int lo, hi;
+
+        BottomUp(long[] _next, int _lo, int _hi) {
+            next = _next;
+            lo = _lo;
+            hi = _hi;
+        }
+
+        protected long[] compute() {
+            if ((hi - lo) * 64 > LEAF) {
+                int mid = (lo + hi) >>> 1;
+                BottomUp left = new BottomUp(next, lo, mid);
+                left.fork();
+                long[] r = new BottomUp(next, mid, hi).compute();
+                long[] l = left.join();
+                return new long[] { l[0] + r[0], l[1] + r[1], l[2] + r[2] };
+            }
+
+            long[] out = new long[3];
+            EdgeCursor t = adj.cursor();
+            int first = Math.max(1, lo << 6), last = Math.min(V, (hi << 6) - 1);
+            for (int v = first; v <= last; ++v) {
+                if (level[v] != -1)
+                    continue;
+                t.start(v);
+                while (t.next()) {
+                    ++out[2];
+                    int u = t.vert;
+                    if ((frontierBits[u >>> 6] & (1L << u)) != 0) {
+                        parent[v] = u;
+                        level[v] = depth + 1;
+                        next[v >>> 6] |= 1L << v;
+                        ++out[0];
+                        out[1] += adj.degree(v);
+                        break;
+                    }
+                }
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+import java.util.Arrays;
+
+// single source to single target shortest paths. bidirectional Dijkstra grows
+// one search from s and one from t (the graph is undirected, so the backward
+// search uses the same lists) and stops once the two smallest keys together
+// reach the best s-t distance seen at a meeting edge. A* instead orders one
+// search by dist + an admissible lower bound on the distance left.
+// like QueryWorkspace the arrays are reused across queries and reset by epoch,
+// so an instance belongs to one thread
+class PointToPoint {
+    // lower bound on the distance from v to target, must never overestimate
+    interface Heuristic {
+        int estimate(int v, int target);
+    }
+
+    private final Graph g;
+    private final EdgeCursor t;
+    private final Search fwd, bwd;
+    private int epoch;
+
+    private int best;              // length of the best s-t path found
+    private int meetV, meetU;      // the edge fwd side v -- bwd side u it runs through
+    private int settled;           // vertices settled by the last query
+    private int source, target;
+
+    public PointToPoint(Graph _g) {
+        g = _g;
+        t = g.adjacency().cursor();
+        fwd = new Search(g.vertices());
+        bwd = new Search(g.vertices());
+    }
+
+    // distance from s to target by bidirectional Dijkstra, Integer.MAX_VALUE if unreachable
+    public int distance(int s, int _target) {
+        begin(s, _target);
+        fwd.add(s, 0, 0, -1);
+        if (s == target) {
+            meetV = meetU = s;
+            return best = 0;
+        }
+        bwd.add(target, 0, 0, -1);
+        best = Integer.MAX_VALUE;
+
+        while (!fwd.isEmpty() && !bwd.isEmpty()) {
+            // nothing shorter can be found once the two frontiers together reach best
+            if ((long) fwd.topKey() + bwd.topKey() >= best)
+                break;
+            if (fwd.topKey() <= bwd.topKey())
+                expand(fwd, bwd, true);
+            else
+                expand(bwd, fwd, false);
+        }
+        return best;
+    }
+
+    private void expand(Search side, Search other, boolean forward) {
+        int v = side.remove();
+        ++settled;
+        int dv = side.dist[v];
+
+        t.start(v);
+        while (t.next()) {
+            int u = t.vert;
+            int d = dv + t.wgt;
+            side.relax(u, d, d, v, epoch);
+
+            // an edge into the other search closes an s-t path
+            if (other.reached(u, epoch) && (long) d + other.dist[u] < best) {
+                best = d + other.dist[u];
+                meetV = forward ? v : u;
+                meetU = forward ? u : v;
+            }
+        }
+    }
+
+    // distance from s to target by A*, h must not overestimate
+    public int astar(int s, int _target, Heuristic h) {
+        begin(s, _target);
+        fwd.add(s, 0, h.estimate(s, target), -1);
+        best = Integer.MAX_VALUE;
+
+        while (!fwd.isEmpty()) {
+            int v = fwd.remove();
+            ++settled;
+            if (v == target) {
+                best = fwd.dist[v];
+                meetV = meetU = v;
+                break;
+            }
+            int dv = fwd.dist[v];
+
+            t.start(v);
+            while (t.next()) {
+                int u = t.vert;
+                int d = dv + t.wgt;
+                if (!fwd.reached(u, epoch) || d < fwd.dist[u])
+                    fwd.relax(u, d, d + h.estimate(u, target), v, epoch);
+            }
+        }
+        return best;
+    }
+
+    private void begin(int s, int _target) {
+        if (++epoch == Integer.MAX_VALUE) {
+            fwd.wipe();
+            bwd.wipe();
+            epoch = 1;
+        }
+        fwd.reset(epoch);
+        bwd.reset(epoch);
+        source = s;
+        target = _target;
+        settled = 0;
+    }
+
+    // vertices settled by the last query, across both searches
+    public int settledCount() {
+        return settled;
+    }
+
+    // the s .. target path of the last query, empty if target was unreachable
+    public int[] path() {
+        if (best == Integer.MAX_VALUE)
+            return new int[0];
+        int n = 0;
+        for (int v = meetV; v != -1; v = fwd.parent[v])
+            ++n;
+        if (meetU != meetV)
+            for (int v = meetU; v != -1; v = bwd.parent[v])
+                ++n;
+
+        int[] path = new int[n];
+        int k = 0;
+        for (int v = meetV; v != -1; v = fwd.parent[v])
+            path[k++] = v;
+        for (int i = 0, j = k - 1; i < j; ++i, --j) {
+            int x = path[i];
+            path[i] = path[j];
+            path[j] = x;
+        }
+        if (meetU != meetV)
+            for (int v = meetU; v != -1; v = bwd.parent[v])
+                path[k++] = v;
+        return path;
+    }
+
+    // one direction of a search: epoch stamped dist/parent and a binary heap on key
+    private static class Search {
+        final int[] stamp, dist, key, parent, hPos, a;
+        int N, epoch;
+
+        Search(int V) {
+            stamp = new int[V + 1];
+            dist = new int[V + 1];
+            key = new int[V + 1];
+            parent = new int[V + 1];
+            hPos = new int[V + 1];
+            a = new int[V + 1];
+        }
+
+        void reset(int _epoch) {
+            epoch = _epoch;
+            N = 0;
+        }
+
+        void wipe() {
+            Arrays.fill(stamp, 0);
+        }
+
+        boolean reached(int v, int e) {
+            return stamp[v] == e;
+        }
+
+        boolean isEmpty() {
+            return N == 0;
+        }
+
+        int topKey() {
+            return key[a[1]];
+        }
+
+        void add(int v, int d, int k, int p) {
+            stamp[v] = epoch;
+            hPos[v] = 0;
+            dist[v] = d;
+            key[v] = k;
+            parent[v] = p;
+            siftUp(v);
+        }
+
+        // lower v to distance d and priority k if that improves it, settled
+        // vertices are reopened so an inconsistent heuristic still ends exact
+        void relax(int v, int d, int k, int p, int e) {
+            if (stamp[v] != e) {
+                add(v, d, k, p);
+            } else if (d < dist[v]) {
+                dist[v] = d;
+                key[v] = k;
+                parent[v] = p;
+                siftUp(v);
+            }
+        }
+
+        private void siftUp(int v) {
+            int k = hPos[v];
+            if (k == 0) {
+                k = ++N;
+                a[k] = v;
+            }
+            while (k > 1 && key[v] < key[a[k / 2]]) {
+                a[k] = a[k / 2];
+                hPos[a[k]] = k;
+                k = k / 2;
+            }
+            a[k] = v;
+            hPos[v] = k;
+        }
+
+        int remove() {
+            int v = a[1];
+            hPos[v] = 0;
+            int last = a[N--];
+            if (N > 0) {
+                int k = 1, j;
+                while (2 * k <= N) {
+                    j = 2 * k;
+                    if (j < N && key[a[j + 1]] < key[a[j]])
+                        j++;
+                    if (key[last] <= key[a[j]])
+                        break;
+                    a[k] = a[j];
+                    hPos[a[k]] = k;
+                    k = j;
+                }
+                a[k] = last;
+                hPos[last] = k;
+            }
+            return v;
+        }
+    }
+}
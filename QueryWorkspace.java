@@ -0,0 +1,238 @@
+import java.util.Arrays;
+
+// reusable scratch space for repeated shortest path and spanning tree queries
+// on one graph. the arrays are allocated once and reset lazily: a slot only
+// counts when its stamp equals the current epoch, so starting a query is O(1)
+// and a query costs time in proportion to the vertices it reaches.
+// a workspace is used by one thread at a time, Graph.workspace() lends them out
+class QueryWorkspace {
+    private final Graph g;
+    private final EdgeCursor t;
+    private final int V;
+
+    private final int[] stamp;   // stamp[v] == epoch when dist, parent and hPos of v are live
+    private final int[] done;    // done[v] == epoch once v is settled
+    private final int[] dist, parent, hPos;
+    private final int[] a;       // binary heap of vertices, a[1] is the root
+    private final int[] order;   // vertices in the order they were settled
+    private int N;               // heap size
+    private int settledCount;
+    private int epoch;
+    private int source;
+
+    public QueryWorkspace(Graph _g) {
+        g = _g;
+        V = g.vertices();
+        t = g.adjacency().cursor();
+        stamp = new int[V + 1];
+        done = new int[V + 1];
+        dist = new int[V + 1];
+        parent = new int[V + 1];
+        hPos = new int[V + 1];
+        a = new int[V + 1];
+        order = new int[V];
+        epoch = 0;
+    }
+
+    // shortest path tree from s over everything reachable, same tie rule as Graph.shortestPaths
+    public QueryWorkspace spt(int s) {
+        dijkstra(s, 0);
+        return this;
+    }
+
+    // distance from s to target, stopping as soon as target is settled
+    public int distance(int s, int target) {
+        dijkstra(s, target);
+        return dist(target);
+    }
+
+    // hop count from s to target by breadth first search, -1 if unreachable,
+    // target 0 walks everything reachable. dist() and parent() then hold the
+    // levels and BFS parents of the vertices reached
+    public int hops(int s, int target) {
+        begin(s);
+        N = 0; // the heap stays empty, order[] is the queue
+        done[s] = epoch;
+        order[settledCount++] = s;
+        for (int head = 0; head < settledCount; ++head) {
+            int v = order[head];
+            if (v == target)
+                return dist[v];
+            t.start(v);
+            while (t.next()) {
+                int u = t.vert;
+                touch(u);
+                if (done[u] != epoch) {
+                    done[u] = epoch;
+                    dist[u] = dist[v] + 1;
+                    parent[u] = v;
+                    order[settledCount++] = u;
+                }
+            }
+        }
+        return -1;
+    }
+
+    // weight of the minimum spanning tree of the component holding s, by Prim
+    public long mstWeight(int s) {
+        int v, u;
+        long sum = 0;
+
+        begin(s);
+        while (N > 0) {
+            v = removeMin();
+            done[v] = epoch;
+            order[settledCount++] = v;
+            sum += dist[v];
+
+            t.start(v);
+            while (t.next()) {
+                u = t.vert;
+                touch(u);
+                if (done[u] != epoch && t.wgt < dist[u]) {
+                    dist[u] = t.wgt;
+                    parent[u] = v;
+                    push(u);
+                }
+            }
+        }
+        return sum;
+    }
+
+    private void dijkstra(int s, int target) {
+        int v, u, d;
+
+        begin(s);
+        while (N > 0) {
+            v = removeMin();
+            done[v] = epoch;
+            order[settledCount++] = v;
+            if (v == target)
+                return;
+
+            t.start(v);
+            while (t.next()) {
+                u = t.vert;
+                touch(u);
+                if (done[u] == epoch)
+                    continue;
+                d = dist[v] + t.wgt;
+                if (d < dist[u]) {
+                    dist[u] = d;
+                    parent[u] = v;
+                    push(u);
+                } else if (d == dist[u] && v < parent[u]) {
+                    parent[u] = v;
+                }
+            }
+        }
+    }
+
+    // start a new query from s, nothing from the last query is cleared
+    private void begin(int s) {
+        if (++epoch == Integer.MAX_VALUE) {
+            // stamps are about to wrap, wipe them once every two billion queries
+            Arrays.fill(stamp, 0);
+            Arrays.fill(done, 0);
+            epoch = 1;
+        }
+        source = s;
+        N = 0;
+        settledCount = 0;
+        touch(s);
+        dist[s] = 0;
+        push(s);
+    }
+
+    // make the slots of v live for this query
+    private void touch(int v) {
+        if (stamp[v] != epoch) {
+            stamp[v] = epoch;
+            dist[v] = Integer.MAX_VALUE;
+            parent[v] = -1;
+            hPos[v] = 0;
+        }
+    }
+
+    // insert v or move it up after its dist was lowered
+    private void push(int v) {
+        int k = hPos[v];
+        if (k == 0) {
+            k = ++N;
+            a[k] = v;
+        }
+        while (k > 1 && dist[v] < dist[a[k / 2]]) {
+            a[k] = a[k / 2];
+            hPos[a[k]] = k;
+            k = k / 2;
+        }
+        a[k] = v;
+        hPos[v] = k;
+    }
+
+    private int removeMin() {
+        int v = a[1];
+        hPos[v] = 0;
+        int last = a[N--];
+        if (N == 0)
+            return v;
+
+        int k = 1, j;
+        while (2 * k <= N) {
+            j = 2 * k;
+            if (j < N && dist[a[j + 1]] < dist[a[j]])
+                j++;
+            if (dist[last] <= dist[a[j]])
+                break;
+            a[k] = a[j];
+            hPos[a[k]] = k;
+            k = j;
+        }
+        a[k] = last;
+        hPos[last] = k;
+        return v;
+    }
+
+    public int source() {
+        return source;
+    }
+
+    // distance found by the last query, Integer.MAX_VALUE if v was not reached
+    public int dist(int v) {
+        return stamp[v] == epoch ? dist[v] : Integer.MAX_VALUE;
+    }
+
+    // parent in the last query's tree, -1 for the source or an unreached vertex
+    public int parent(int v) {
+        return stamp[v] == epoch ? parent[v] : -1;
+    }
+
+    public boolean settled(int v) {
+        return done[v] == epoch;
+    }
+
+    // vertices settled by the last query, in the order they were settled
+    public int settledCount() {
+        return settledCount;
+    }
+
+    public int settledVertex(int i) {
+        return order[i];
+    }
+
+    // writes the path source .. target into out and returns its length,
+    // 0 if target was not reached. out needs room for settledCount() vertices
+    public int path(int target, int[] out) {
+        if (!settled(target))
+            return 0;
+        int n = 0;
+        for (int v = target; v != -1; v = parent(v))
+            out[n++] = v;
+        for (int i = 0, j = n - 1; i < j; ++i, --j) {
+            int x = out[i];
+            out[i] = out[j];
+            out[j] = x;
+        }
+        return n;
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+// radix heap for Dijkstra with non-negative integer weights. bucket i holds
+// the keys whose highest bit differing from the last removed key is bit i - 1,
+// so a key only ever moves to lower buckets and each move is O(1)
+class RadixHeap implements VertexQueue {
+    private static final int BUCKETS = 33;
+
+    private final int[] dist;    // dist[v] = priority of v
+    private final int[] head = new int[BUCKETS];
+    private final int[] next, prev;
+    private final int[] bucket;  // bucket holding v, -1 when v is not queued
+    private int last;            // last key removed, -1 before the first insert
+    private int N;               // queue size
+
+    public RadixHeap(int maxSize, int[] _dist) {
+        dist = _dist;
+        next = new int[maxSize + 1];
+        prev = new int[maxSize + 1];
+        bucket = new int[maxSize + 1];
+        Arrays.fill(bucket, -1);
+        N = 0;
+        last = -1;
+    }
+
+    public boolean isEmpty() {
+        return N == 0;
+    }
+
+    public boolean contains(int v) {
+        return bucket[v] >= 0;
+    }
+
+    public void insert(int v) {
+        if (last < 0)
+            last = dist[v]; // the first key sets where the scan starts
+        link(v);
+        ++N;
+    }
+
+    public void decreaseKey(int v) {
+        unlink(v);
+        link(v);
+    }
+
+    public int remove() {
+        if (head[0] == 0) {
+            // find the first non-empty bucket and its smallest key
+            int i = 1;
+            while (head[i] == 0)
+                ++i;
+            int min = Integer.MAX_VALUE;
+            for (int v = head[i]; v != 0; v = next[v])
+                min = Math.min(min, dist[v]);
+
+            // that key becomes last and the bucket spreads over lower ones
+            last = min;
+            int v = head[i];
+            head[i] = 0;
+            while (v != 0) {
+                int n = next[v];
+                link(v);
+                v = n;
+            }
+        }
+        int v = head[0];
+        unlink(v);
+        --N;
+        return v;
+    }
+
+    private void link(int v) {
+        int x = dist[v] ^ last;
+        int b = x == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(x);
+        bucket[v] = b;
+        prev[v] = 0;
+        next[v] = head[b];
+        if (head[b] != 0)
+            prev[head[b]] = v;
+        head[b] = v;
+    }
+
+    private void unlink(int v) {
+        int b = bucket[v];
+        if (prev[v] != 0)
+            next[prev[v]] = next[v];
+        else
+            head[b] = next[v];
+        if (next[v] != 0)
+            prev[next[v]] = prev[v];
+        bucket[v] = -1;
+    }
+}
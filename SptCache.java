@@ -0,0 +1,229 @@
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// cache of shortest path trees keyed by source with approximate LRU (clock)
+// eviction. a hit is one lookup in a concurrent map and takes no lock, and a
+// path is unwound from the cached parent array. the cache is bounded by
+// entry count or by bytes. every tree costs 8 bytes per vertex, so a byte
+// budget comes down to an entry count. threads asking for the same
+// missing source wait for one Dijkstra run instead of each starting their own.
+// trees remember the Graph.version() they were built for, and the first
+// lookup after a weight change drops the whole cache
+class SptCache {
+    private static final long OVERHEAD = 64; // rough per-entry cost besides the arrays
+
+    // the tree from one source, never modified once built
+    static final class Tree {
+        final int source;
+        final long version;
+        final int[] dist, parent;
+
+        Tree(int _source, long _version, int[] _dist, int[] _parent) {
+            source = _source;
+            version = _version;
+            dist = _dist;
+            parent = _parent;
+        }
+
+        public int distance(int t) {
+            return dist[t];
+        }
+
+        // source .. t, empty if t cannot be reached
+        public int[] path(int t) {
+            if (dist[t] == Integer.MAX_VALUE)
+                return new int[0];
+            int n = 1;
+            for (int v = t; v != source; v = parent[v])
+                ++n;
+            int[] out = new int[n];
+            for (int v = t; n > 0; v = parent[v])
+                out[--n] = v;
+            return out;
+        }
+    }
+
+    // a cached tree and its clock bit, set by hits and cleared as the hand passes
+    private static final class Entry {
+        final Tree tree;
+        volatile boolean referenced;
+
+        Entry(Tree _tree) {
+            tree = _tree;
+        }
+    }
+
+    // an in-flight build: the source and the graph version it is for
+    private static final class Key {
+        final int source;
+        final long version;
+
+        Key(int _source, long _version) {
+            source = _source;
+            version = _version;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).source == source && ((Key) o).version == version;
+        }
+
+        public int hashCode() {
+            return source * 31 + Long.hashCode(version);
+        }
+    }
+
+    private final Graph g;
+    private final int capacity;
+    private final ConcurrentHashMap<Integer, Entry> trees = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Key, FutureTask<Tree>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong version;                 // the version the cached trees are for
+    private final Object evicting = new Object();     // guards hand, taken on inserts only
+    private Iterator<Entry> hand;                     // clock hand over the cached trees
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    // at most maxEntries trees
+    public SptCache(Graph _g, int maxEntries) {
+        g = _g;
+        capacity = Math.max(1, maxEntries);
+        version = new AtomicLong(g.version());
+    }
+
+    // as many trees as fit in maxBytes, at least one
+    public static SptCache withByteBudget(Graph g, long maxBytes) {
+        return new SptCache(g, (int) Math.min(Integer.MAX_VALUE, maxBytes / bytesPerTree(g)));
+    }
+
+    public static long bytesPerTree(Graph g) {
+        return 8L * (g.vertices() + 1) + OVERHEAD;
+    }
+
+    public int distance(int s, int t) {
+        return get(s).dist[t];
+    }
+
+    public int[] path(int s, int t) {
+        return get(s).path(t);
+    }
+
+    // the tree from s, built on a miss. a hit takes no lock: one map lookup
+    // and the clock bit, written only when it is not already set
+    public Tree get(int s) {
+        long now = g.version();
+        long seen = version.get();
+        if (now != seen && version.compareAndSet(seen, now)) {
+            trees.clear();
+            invalidations.increment();
+        }
+        Entry e = trees.get(s);
+        if (e != null && e.tree.version == now) {
+            if (!e.referenced)
+                e.referenced = true;
+            hits.increment();
+            return e.tree;
+        }
+        misses.increment();
+
+        // one thread builds the tree for this version, the others asking for s
+        // wait on it. after a weight change the key differs, so a build still
+        // running for the old weights is never handed to a later caller
+        Key key = new Key(s, now);
+        FutureTask<Tree> task = new FutureTask<>(() -> build(s, now));
+        FutureTask<Tree> running = loading.putIfAbsent(key, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                loading.remove(key, task);
+            }
+        }
+        try {
+            return running.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for the tree from " + s, ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("building the tree from " + s + " failed", ex.getCause());
+        }
+    }
+
+    private Tree build(int s, long expected) {
+        int V = g.vertices();
+        int[] dist = new int[V + 1];
+        int[] parent = new int[V + 1];
+        g.shortestPaths(s, dist, parent, g.minWeight() >= 0 ? VertexQueue.Kind.MONOTONE : VertexQueue.Kind.BINARY);
+        long after = g.version();
+        Tree tree = new Tree(s, expected, dist, parent);
+
+        // a tree built while the weights changed is handed out once but not kept
+        if (after == expected && after == version.get()) {
+            trees.put(s, new Entry(tree));
+            if (trees.size() > capacity)
+                evict();
+        }
+        return tree;
+    }
+
+    // second chance: the hand clears set bits and drops the first tree it
+    // finds unreferenced, until the cache is back within its capacity
+    private void evict() {
+        synchronized (evicting) {
+            while (trees.size() > capacity) {
+                if (hand == null || !hand.hasNext())
+                    hand = trees.values().iterator();
+                if (!hand.hasNext())
+                    return;
+                Entry e = hand.next();
+                if (e.referenced) {
+                    e.referenced = false;
+                } else if (trees.remove(e.tree.source, e)) {
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    // forget every tree
+    public void clear() {
+        trees.clear();
+    }
+
+    public int size() {
+        return trees.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    // one line summary of the counters
+    public String stats() {
+        long h = hits.sum(), m = misses.sum();
+        return String.format("SPT cache: %d/%d trees, %d hits, %d misses (%.1f%% hit rate), %d evictions, %d invalidations",
+                size(), capacity, h, m, h + m == 0 ? 0 : 100.0 * h / (h + m), evictions.sum(), invalidations.sum());
+    }
+}
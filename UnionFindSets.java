@@ -0,0 +1,117 @@
+// class representing union-find sets over vertices 1..n, used by Kruskal's
+// algorithm and for connectivity queries. find halves the path it walks and
+// union hangs the smaller tree under the larger, so both are near constant
+// time and no tree gets deeper than log n
+class UnionFindSets {
+    private int[] parent;
+    private int[] setSize; // setSize[root] = no of vertices in that set
+    private int size;
+    private int count;     // no of disjoint sets
+
+    // constructor for UnionFindSets
+    public UnionFindSets(int numVertices) {
+        size = numVertices;
+        count = numVertices;
+        parent = new int[numVertices + 1];
+        setSize = new int[numVertices + 1];
+
+        // Initialising each vertex as a separate set
+        for (int i = 1; i <= size; ++i) {
+            parent[i] = i;
+            setSize[i] = 1;
+        }
+    }
+
+    // finding the set to which a vertex belongs, pointing every other vertex
+    // on the way at its grandparent
+    public int findSet(int vertex) {
+        while (vertex != parent[vertex]) {
+            parent[vertex] = parent[parent[vertex]];
+            vertex = parent[vertex];
+        }
+        return vertex;
+    }
+
+    // perform union operation, true if the two vertices were in different sets
+    public boolean union(int set1, int set2) {
+        int r1 = findSet(set1);
+        int r2 = findSet(set2);
+        if (r1 == r2)
+            return false;
+
+        // the smaller set goes under the root of the larger one
+        if (setSize[r1] > setSize[r2]) {
+            int t = r1;
+            r1 = r2;
+            r2 = t;
+        }
+        parent[r1] = r2;
+        setSize[r2] += setSize[r1];
+        --count;
+        return true;
+    }
+
+    public boolean sameSet(int u, int v) {
+        return findSet(u) == findSet(v);
+    }
+
+    // no of vertices in the set holding vertex
+    public int size(int vertex) {
+        return setSize[findSet(vertex)];
+    }
+
+    // no of disjoint sets
+    public int count() {
+        return count;
+    }
+
+    // every set as an array of its vertices in increasing order, sets ordered by
+    // their lowest vertex. built in one linear pass by counting sort on the roots
+    public int[][] sets() {
+        int vertex, root;
+        int[] root2set = new int[size + 1]; // set number + 1 for each root, 0 if not seen yet
+        int[] setOf = new int[size + 1];
+        int[] fill = new int[count];
+        int[][] sets = new int[count][];
+        int n = 0;
+
+        for (vertex = 1; vertex <= size; ++vertex) {
+            root = findSet(vertex);
+            if (root2set[root] == 0) {
+                root2set[root] = ++n;
+                sets[n - 1] = new int[setSize[root]];
+            }
+            setOf[vertex] = root2set[root] - 1;
+        }
+        for (vertex = 1; vertex <= size; ++vertex)
+            sets[setOf[vertex]][fill[setOf[vertex]]++] = vertex;
+        return sets;
+    }
+
+    public void showTrees() {
+        int i;
+        for (i = 1; i <= size; ++i)
+            System.out.print(toChar(i) + "->" + toChar(parent[i]) + "  ");
+        System.out.print("\n");
+    }
+
+    // display the sets formed by the union-find sets
+    public void showSets() {
+        for (int[] set : sets())
+            showSet(set);
+        System.out.print("\n");
+    }
+
+    // helper method to display a single set
+    private void showSet(int[] set) {
+        System.out.print("Set: {");
+        for (int vertex : set)
+            System.out.print(toChar(vertex) + " ");
+        System.out.print("}  ");
+    }
+
+    // convert vertex into char for pretty printing
+    private char toChar(int vertex) {
+        return (char) (vertex + 64); // assuming vertices are represented as integers starting from 1
+    }
+}
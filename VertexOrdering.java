@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.util.Arrays;
+
+// renumbers the vertices so that neighbours get nearby numbers. the
+// algorithms index dist[], parent[] and the adjacency arrays by vertex, so on a
+// graph numbered at random almost every neighbour is a cache miss, while after
+// a locality ordering the neighbours of v mostly sit in the same few lines:
+//
+//   rcm     reverse Cuthill-McKee: breadth first from a pseudo-peripheral
+//           vertex, each vertex's new neighbours taken by increasing degree,
+//           then the whole order reversed. keeps the bandwidth small
+//   bfs     plain breadth first order, component by component
+//   degree  by decreasing degree, so the hubs share a few hot lines
+//
+// newId(v) is the number the graph uses for the file's vertex v and oldId(v)
+// turns it back, both leave 0 and -1 alone so parent arrays map as they are.
+// report() compares the numbering before and after: bandwidth (the largest
+// |u - v| over the edges), the mean |u - v|, and the misses per access of a
+// modelled 32KB 8-way cache while a sweep over all vertices in order reads
+// dist[] of every neighbour
+class VertexOrdering {
+    public enum Method { RCM, BFS, DEGREE }
+
+    // the cache model: 64 byte lines of 16 ints, 64 sets of 8 ways
+    private static final int LINE_SHIFT = 4, SETS = 64, WAYS = 8;
+
+    public final Method method;
+    private final int V;
+    private final int[] newId, oldId; // both 1-based, inverse of each other
+
+    public long bandwidthBefore, bandwidthAfter;
+    public double spanBefore, spanAfter;  // mean |u - v| over the edges
+    public double missesBefore, missesAfter; // modelled misses per access
+    public long nanos;
+
+    private VertexOrdering(Method _method, int _V, int[] _newId, int[] _oldId) {
+        method = _method;
+        V = _V;
+        newId = _newId;
+        oldId = _oldId;
+    }
+
+    // the edge arrays are only read, for the bandwidth figures
+    public static VertexOrdering compute(Method method, CsrAdjacency csr, int[] from, int[] to, int E) {
+        long begin = System.nanoTime();
+        int V = csr.vertices();
+        int[] order = method == Method.DEGREE ? byDegree(csr, V, false) : breadthFirst(csr, V, method == Method.RCM);
+        int[] newId = new int[V + 1], oldId = new int[V + 1];
+        for (int i = 0; i < V; ++i) {
+            int id = method == Method.RCM ? V - i : i + 1;
+            newId[order[i]] = id;
+            oldId[id] = order[i];
+        }
+        VertexOrdering o = new VertexOrdering(method, V, newId, oldId);
+        o.nanos = System.nanoTime() - begin;
+
+        long sumBefore = 0, sumAfter = 0;
+        for (int e = 0; e < E; ++e) {
+            long before = Math.abs(from[e] - to[e]), after = Math.abs(newId[from[e]] - newId[to[e]]);
+            o.bandwidthBefore = Math.max(o.bandwidthBefore, before);
+            o.bandwidthAfter = Math.max(o.bandwidthAfter, after);
+            sumBefore += before;
+            sumAfter += after;
+        }
+        o.spanBefore = E == 0 ? 0 : (double) sumBefore / E;
+        o.spanAfter = E == 0 ? 0 : (double) sumAfter / E;
+        o.missesBefore = missRate(csr, V, null, null);
+        o.missesAfter = missRate(csr, V, newId, oldId);
+        return o;
+    }
+
+    // the file's vertex v under the new numbering
+    public int newId(int v) {
+        return v <= 0 ? v : newId[v];
+    }
+
+    // the file's number for the renumbered vertex v
+    public int oldId(int v) {
+        return v <= 0 ? v : oldId[v];
+    }
+
+    public int vertices() {
+        return V;
+    }
+
+    // rewrites both ends of every edge in place
+    public void relabel(int[] from, int[] to, int E) {
+        for (int e = 0; e < E; ++e) {
+            from[e] = newId[from[e]];
+            to[e] = newId[to[e]];
+        }
+    }
+
+    // passes the events on with the file's vertex numbers
+    public AlgorithmListener relabel(AlgorithmListener l) {
+        return new AlgorithmListener() {
+            public void edgeLoaded(int u, int v, int wgt) {
+                l.edgeLoaded(oldId(u), oldId(v), wgt);
+            }
+
+            public void started(Algorithm alg, int source) {
+                l.started(alg, oldId(source));
+            }
+
+            public void vertexSettled(Algorithm alg, int v, int parent, int step) {
+                l.vertexSettled(alg, oldId(v), oldId(parent), step);
+            }
+
+            public void edgeAccepted(Algorithm alg, int u, int v, int wgt) {
+                l.edgeAccepted(alg, oldId(u), oldId(v), wgt);
+            }
+
+            public void edgeRejected(Algorithm alg, int u, int v, int wgt) {
+                l.edgeRejected(alg, oldId(u), oldId(v), wgt);
+            }
+
+            public void setsChanged(UnionFindSets sets) {
+                l.setsChanged(sets);
+            }
+
+            public void heapOperation(Algorithm alg, HeapOp op, int v) {
+                l.heapOperation(alg, op, oldId(v));
+            }
+        };
+    }
+
+    public String report() {
+        return String.format("%s ordering in %.1f ms: bandwidth %d -> %d, mean edge span %.1f -> %.1f, modelled cache misses per access %.3f -> %.3f",
+                method.name().toLowerCase(), nanos / 1e6, bandwidthBefore, bandwidthAfter, spanBefore, spanAfter,
+                missesBefore, missesAfter);
+    }
+
+    // breadth first over every component. with cuthillMcKee each component
+    // starts from a pseudo-peripheral vertex, the components are taken from
+    // their lowest degree vertex and the vertices discovered from one vertex
+    // are queued by increasing degree; otherwise the lowest unseen vertex starts
+    private static int[] breadthFirst(CsrAdjacency g, int V, boolean cuthillMcKee) {
+        int[] order = new int[V];
+        boolean[] seen = new boolean[V + 1];
+        int[] roots = cuthillMcKee ? byDegree(g, V, true) : null;
+        int[] level = cuthillMcKee ? new int[V + 1] : null;
+        int[] queue = cuthillMcKee ? new int[V] : null;
+        int maxDegree = 0;
+        for (int v = 1; v <= V; ++v)
+            maxDegree = Math.max(maxDegree, g.degree(v));
+        long[] keys = new long[maxDegree];
+
+        int n = 0;
+        for (int i = 0; i < V; ++i) {
+            int r = cuthillMcKee ? roots[i] : i + 1;
+            if (seen[r])
+                continue;
+            if (cuthillMcKee)
+                r = peripheral(g, r, level, queue);
+            seen[r] = true;
+            order[n++] = r;
+            for (int head = n - 1; head < n; ++head) {
+                int v = order[head], first = n;
+                for (int p = g.offsets[v]; p < g.offsets[v + 1]; ++p) {
+                    int u = g.targets[p];
+                    if (!seen[u]) {
+                        seen[u] = true;
+                        order[n++] = u;
+                    }
+                }
+                if (cuthillMcKee && n - first > 1) {
+                    for (int j = first; j < n; ++j)
+                        keys[j - first] = ((long) g.degree(order[j]) << 32) | order[j];
+                    Arrays.sort(keys, 0, n - first);
+                    for (int j = first; j < n; ++j)
+                        order[j] = (int) keys[j - first];
+                }
+            }
+        }
+        return order;
+    }
+
+    // George and Liu: walk to a vertex of least degree in the last BFS level
+    // for as long as that makes the eccentricity grow, a few rounds at most
+    private static int peripheral(CsrAdjacency g, int r, int[] level, int[] queue) {
+        int eccentricity = -1;
+        for (int round = 0; round < 8; ++round) {
+            // levels are stored + 1 so 0 means unreached, cleared again below
+            int n = 0;
+            level[r] = 1;
+            queue[n++] = r;
+            for (int head = 0; head < n; ++head) {
+                int v = queue[head];
+                for (int p = g.offsets[v]; p < g.offsets[v + 1]; ++p) {
+                    int u = g.targets[p];
+                    if (level[u] == 0) {
+                        level[u] = level[v] + 1;
+                        queue[n++] = u;
+                    }
+                }
+            }
+            int depth = level[queue[n - 1]], best = queue[n - 1];
+            for (int j = n - 1; j >= 0 && level[queue[j]] == depth; --j)
+                if (g.degree(queue[j]) < g.degree(best))
+                    best = queue[j];
+            for (int j = 0; j < n; ++j)
+                level[queue[j]] = 0;
+            if (depth <= eccentricity)
+                break;
+            eccentricity = depth;
+            r = best;
+        }
+        return r;
+    }
+
+    // the vertices by degree, a counting sort so ties keep their numbering
+    private static int[] byDegree(CsrAdjacency g, int V, boolean ascending) {
+        int maxDegree = 0;
+        for (int v = 1; v <= V; ++v)
+            maxDegree = Math.max(maxDegree, g.degree(v));
+        int[] start = new int[maxDegree + 2];
+        for (int v = 1; v <= V; ++v)
+            start[(ascending ? g.degree(v) : maxDegree - g.degree(v)) + 1]++;
+        for (int d = 1; d < start.length; ++d)
+            start[d] += start[d - 1];
+        int[] order = new int[V];
+        for (int v = 1; v <= V; ++v)
+            order[start[ascending ? g.degree(v) : maxDegree - g.degree(v)]++] = v;
+        return order;
+    }
+
+    // misses per access of the cache model while every vertex in turn reads
+    // its own dist[] slot and then those of its neighbours, numbered by newId
+    // (the file's numbering when null)
+    private static double missRate(CsrAdjacency g, int V, int[] newId, int[] oldId) {
+        long[] tags = new long[SETS * WAYS]; // per set, most recently used first
+        Arrays.fill(tags, -1);
+        long accesses = 0, misses = 0;
+        for (int id = 1; id <= V; ++id) {
+            int v = oldId == null ? id : oldId[id];
+            misses += touch(tags, id);
+            ++accesses;
+            for (int p = g.offsets[v]; p < g.offsets[v + 1]; ++p) {
+                int u = g.targets[p];
+                misses += touch(tags, newId == null ? u : newId[u]);
+                ++accesses;
+            }
+        }
+        return accesses == 0 ? 0 : (double) misses / accesses;
+    }
+
+    // 1 on a miss, the line of slot x moves to the front of its set either way
+    private static int touch(long[] tags, int x) {
+        long line = x >>> LINE_SHIFT;
+        int base = (int) (line % SETS) * WAYS, w = 0;
+        while (w < WAYS - 1 && tags[base + w] != line)
+            ++w;
+        int miss = tags[base + w] == line ? 0 : 1;
+        System.arraycopy(tags, base, tags, base + 1, w);
+        tags[base] = line;
+        return miss;
+    }
+
+    // the figures for each method, then BFS and Dijkstra sweeps over CSR timed
+    // before and after, e.g. "java VertexOrdering road.txt rcm"
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: java VertexOrdering <edge file> [rcm|bfs|degree]");
+            System.exit(1);
+        }
+        EdgeFileParser edges = EdgeFileParser.parse(args[0]);
+        CsrAdjacency csr = CsrAdjacency.build(edges.V, edges.E, edges.from, edges.to, edges.wgt);
+        Method[] methods = args.length > 1 ? new Method[] { Method.valueOf(args[1].toUpperCase()) } : Method.values();
+        for (Method m : methods)
+            System.out.println(compute(m, csr, edges.from, edges.to, edges.E).report());
+
+        Graph plain = new Graph(args[0], Graph.Storage.CSR);
+        for (Method m : methods) {
+            Graph ordered = new Graph(args[0], Graph.Storage.CSR, m);
+            QueryWorkspace a = plain.workspace(), b = ordered.workspace();
+            int s = 1, t = ordered.internal(1);
+            for (int rep = 0; rep < 3; ++rep) {
+                long begin = System.nanoTime();
+                a.hops(s, 0);
+                long bfsBefore = System.nanoTime() - begin;
+                begin = System.nanoTime();
+                b.hops(t, 0);
+                long bfsAfter = System.nanoTime() - begin;
+                begin = System.nanoTime();
+                a.spt(s);
+                long sptBefore = System.nanoTime() - begin;
+                begin = System.nanoTime();
+                b.spt(t);
+                long sptAfter = System.nanoTime() - begin;
+                System.out.printf("%s: BFS %.1f -> %.1f ms, Dijkstra %.1f -> %.1f ms%n", m.name().toLowerCase(),
+                        bfsBefore / 1e6, bfsAfter / 1e6, sptBefore / 1e6, sptAfter / 1e6);
+            }
+            plain.release(a);
+            ordered.release(b);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+// priority queue of vertices ordered by a dist[] array owned by the caller,
+// the caller lowers dist[v] first and then calls decreaseKey(v)
+interface VertexQueue {
+    boolean isEmpty();
+
+    void insert(int v);
+
+    // take out the vertex with the smallest dist
+    int remove();
+
+    // dist[v] has just been lowered for a vertex already in the queue
+    void decreaseKey(int v);
+
+    // whether v is in the queue right now
+    boolean contains(int v);
+
+    // sift calls so far, counted only with Metrics.ENABLED and only by the
+    // array heaps, the other queues report 0
+    default long siftUps() {
+        return 0;
+    }
+
+    default long siftDowns() {
+        return 0;
+    }
+
+    // the implementations to pick from for each call of MST_Prim or SPT_Dijkstra.
+    // DIAL and RADIX rely on keys never dropping below the last one removed, so
+    // they only suit Dijkstra with non-negative integer weights, and MONOTONE
+    // picks between the two from the largest weight in the graph
+    enum Kind {
+        BINARY, QUAD, OCT, PAIRING, DIAL, RADIX, MONOTONE;
+
+        public boolean monotone() {
+            return this == DIAL || this == RADIX || this == MONOTONE;
+        }
+
+        // a queue for keys that may come in any order
+        public VertexQueue create(int maxSize, int[] dist, int[] hPos) {
+            if (monotone())
+                throw new IllegalArgumentException(this + " only works for monotone keys");
+            return create(maxSize, dist, hPos, Integer.MAX_VALUE);
+        }
+
+        // a queue able to hold vertices 1..maxSize, hPos is scratch space of size
+        // maxSize + 1 and maxWeight the largest edge weight in the graph
+        public VertexQueue create(int maxSize, int[] dist, int[] hPos, int maxWeight) {
+            switch (this) {
+                case MONOTONE:
+                    if (maxWeight <= DialQueue.MAX_WIDTH)
+                        return new DialQueue(maxSize, dist, maxWeight);
+                    return new RadixHeap(maxSize, dist);
+                case DIAL:
+                    return new DialQueue(maxSize, dist, maxWeight);
+                case RADIX:
+                    return new RadixHeap(maxSize, dist);
+                case QUAD:
+                    return new DaryHeap(4, maxSize, dist, hPos);
+                case OCT:
+                    return new DaryHeap(8, maxSize, dist, hPos);
+                case PAIRING:
+                    return new PairingHeap(maxSize, dist);
+                default:
+                    return new Heap(maxSize, dist, hPos);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package graphs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// the algorithms GraphLists and KruskalTrees run, from vertex 1. DF,
+// breadthFirst, MST_Prim and SPT_Dijkstra print as they go, so stdout goes to
+// a null stream for the trial and the formatting is part of what is measured.
+// shortestPaths is the same Dijkstra without the printing
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlgorithmBenchmark {
+    @Param({"LISTS", "CSR", "COMPRESSED"})
+    public String storage;
+
+    private Graph g;
+    private KruskalGraph kruskal;
+    private int[] dist, parent;
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void load(GeneratedGraph in) throws IOException {
+        g = new Graph(in.file, Graph.Storage.valueOf(storage));
+        kruskal = new KruskalGraph(in.file);
+        dist = new int[g.vertices() + 1];
+        parent = new int[g.vertices() + 1];
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void depthFirst() {
+        g.DF(1);
+    }
+
+    @Benchmark
+    public void breadthFirst() {
+        g.breadthFirst(1);
+    }
+
+    @Benchmark
+    public void mstPrim() {
+        g.MST_Prim(1);
+    }
+
+    @Benchmark
+    public void sptDijkstra() {
+        g.SPT_Dijkstra(1);
+    }
+
+    @Benchmark
+    public int[] shortestPaths() {
+        g.shortestPaths(1, dist, parent, VertexQueue.Kind.BINARY);
+        return dist;
+    }
+
+    @Benchmark
+    public Object kruskalFindMST() {
+        return kruskal.findMST();
+    }
+}
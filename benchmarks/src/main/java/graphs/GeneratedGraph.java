@@ -0,0 +1,51 @@
+package graphs;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+// a generated edge file shared by every benchmark in a trial. the graph is
+// "shape:V:E", E is ignored for complete graphs, e.g. -p graph=grid:1000000:2000000
+@State(Scope.Benchmark)
+public class GeneratedGraph {
+    @Param({"random:100000:500000", "grid:100000:200000", "power_law:100000:500000", "complete:1500:0"})
+    public String graph;
+
+    @Param({"1"})
+    public int minWeight;
+
+    @Param({"1000"})
+    public int maxWeight;
+
+    @Param({"42"})
+    public long seed;
+
+    public String file;
+    public int V, E;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        String[] spec = graph.split(":");
+        if (spec.length != 3)
+            throw new IllegalArgumentException("graph should be shape:V:E, not " + graph);
+        GraphGenerator gen = new GraphGenerator(seed, minWeight, maxWeight)
+                .generate(GraphGenerator.Shape.valueOf(spec[0].toUpperCase()), Integer.parseInt(spec[1]), Integer.parseInt(spec[2]));
+        File f = File.createTempFile("bench-" + spec[0], ".txt");
+        f.deleteOnExit();
+        file = f.getPath();
+        gen.write(file);
+        V = gen.V;
+        E = gen.E;
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() {
+        new File(file).delete();
+    }
+}
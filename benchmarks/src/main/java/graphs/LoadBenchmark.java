@@ -0,0 +1,40 @@
+package graphs;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+// parsing an edge file into each storage backend and into the Kruskal edge list
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+    @Benchmark
+    public Object lists(GeneratedGraph in) throws IOException {
+        return new Graph(in.file, Graph.Storage.LISTS);
+    }
+
+    @Benchmark
+    public Object csr(GeneratedGraph in) throws IOException {
+        return new Graph(in.file, Graph.Storage.CSR);
+    }
+
+    @Benchmark
+    public Object compressed(GeneratedGraph in) throws IOException {
+        return new Graph(in.file, Graph.Storage.COMPRESSED);
+    }
+
+    @Benchmark
+    public Object kruskal(GeneratedGraph in) throws IOException {
+        return new KruskalGraph(in.file);
+    }
+}